@@ -1,17 +1,25 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.server;
 
-import bg.sofia.uni.fmi.mjt.bookmarks.server.external.BitlyUrlShortener;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.external.LocalUrlShortener;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.external.UrlShortener;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.DefaultLogger;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.LogFormat;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.Logger;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.Severity;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.providers.AsyncFileProvider;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.providers.DefaultConsoleProvider;
-import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.providers.DefaultFileProvider;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.metrics.DefaultMetricsRegistry;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.metrics.MetricsReporter;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Group;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.ShortCode;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.FileDatabaseContext;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.FileRepository;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.FileRepositoryOptions;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.LoadListener;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.MappedFileRepository;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.search.SearchIndex;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.services.BookmarksService;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.services.DefaultBookmarksService;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.sessions.DefaultSessionStore;
@@ -20,47 +28,119 @@ import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.hasher.DefaultPasswordHasher;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.hasher.PasswordHasher;
 
 import java.net.http.HttpClient;
+import java.nio.file.Path;
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.util.Scanner;
 
 public class Main {
 
+    private static final String HOST = "localhost";
     private static final int PORT = 8080;
+    private static final int SHORTENER_PORT = 8081;
+    private static final int CONNECT_TIMEOUT_SECONDS = 5;
+    private static final int INFO_LINES_PER_SECOND = 1000;
+    private static final int EXCEPTION_DEDUPLICATION_MINUTES = 5;
+    private static final int METRICS_DUMP_INTERVAL = 60_000;
+    private static final String ADMINS_PROPERTY = "bookmarks.admins";
+    private static final String HOST_PROPERTY = "bookmarks.host";
+    private static final String SHORTENER_URL_PROPERTY = "bookmarks.shortener.url";
 
     public static void main(String... args) throws InterruptedException {
-        var options = ServerOptions
+        // Log lines are written to disk by a background thread, commands only queue them
+        var fileProvider = AsyncFileProvider
+            .configure()
+            .configureOverflowPolicy(AsyncFileProvider.OverflowPolicy.BLOCK)
+            .build();
+
+        var logger = DefaultLogger
+            .configure()
+            .addConsoleLogging(Severity.INFO)
+            .configureConsoleProvider(new DefaultConsoleProvider())
+            .addFileLogging(Severity.INFO)
+            .configureFileProvider(fileProvider)
+            .configureFileFormat(LogFormat.JSON)
+            .configureInfoSampling(INFO_LINES_PER_SECOND)
+            .configureExceptionDeduplication(Duration.ofMinutes(EXCEPTION_DEDUPLICATION_MINUTES))
+            .configureDateTimeProvider(new DefaultDateTimeProvider())
+            .build();
+
+        // One client for every outgoing request: its connection pool and HTTP/2 sessions are shared
+        var httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(CONNECT_TIMEOUT_SECONDS))
+            .build();
+
+        var shortCodes = new MappedFileRepository<>(
+            FileRepositoryOptions.create("./db/shortcodes")
+                .configureLoadListener(loadListener(logger, "short codes"))
+                .build(),
+            String.class,
+            ShortCode.class);
+        shortCodes.load();
+
+        // Interface both servers listen on, e.g. -Dbookmarks.host=0.0.0.0
+        String host = System.getProperty(HOST_PROPERTY, HOST);
+
+        // Short links are served by the server itself, no external shortener is needed. Behind a proxy or
+        // a public name the links need their own base, e.g. -Dbookmarks.shortener.url=https://sho.rt/
+        var shortener = LocalUrlShortener
+            .configure(shortCodes, System.getProperty(SHORTENER_URL_PROPERTY,
+                "http://" + host + ":" + SHORTENER_PORT + "/"))
+            .configureHost(host)
+            .configurePort(SHORTENER_PORT)
+            .build();
+
+        var metrics = new DefaultMetricsRegistry();
+
+        var optionsBuilder = ServerOptions
             .create(PORT)
+            .setHost(host)
             .addSessionStore(new DefaultSessionStore())
-            .addLogger(
-                DefaultLogger
-                    .configure()
-                    .addConsoleLogging(Severity.INFO)
-                    .configureConsoleProvider(new DefaultConsoleProvider())
-                    .addFileLogging(Severity.INFO)
-                    .configureFileProvider(new DefaultFileProvider())
-                    .configureDateTimeProvider(new DefaultDateTimeProvider())
-                    .build()
-            )
+            .addLogger(logger)
+            .addMetrics(metrics)
             .addDatabaseContext(
                 new FileDatabaseContext(
                     new FileRepository<>(
-                        FileRepositoryOptions.create("./db/users.json").build(),
+                        FileRepositoryOptions.create("./db/users.json")
+                            .configureLoadListener(loadListener(logger, "users"))
+                            .build(),
                         String.class,
                         User.class),
                     new FileRepository<>(
-                        FileRepositoryOptions.create("./db/bookmarks.json").build(),
+                        FileRepositoryOptions.create("./db/bookmarks.json")
+                            .configureLoadListener(loadListener(logger, "bookmarks"))
+                            .build(),
                         String.class,
                         Bookmark.class),
                     new FileRepository<>(
-                        FileRepositoryOptions.create("./db/groups.json").build(),
+                        FileRepositoryOptions.create("./db/groups.json")
+                            .configureLoadListener(loadListener(logger, "groups"))
+                            .build(),
                         String.class,
-                        Group.class)
+                        Group.class),
+                    new SearchIndex(Path.of("./db/fulltext"))
                 )
             )
             .addService(PasswordHasher.class, new DefaultPasswordHasher(new SecureRandom()))
-            .addService(UrlShortener.class, new BitlyUrlShortener(HttpClient.newHttpClient(), "API KEY HERE"))
-            .addService(BookmarksService.class, new DefaultBookmarksService(HttpClient.newHttpClient()))
-            .build();
+            .addService(UrlShortener.class, shortener)
+            .addService(BookmarksService.class, DefaultBookmarksService
+                .configure(httpClient)
+                .enableFullText()
+                .configureMetrics(metrics)
+                .build());
+
+        // Comma separated usernames, e.g. -Dbookmarks.admins=alice,bob
+        for (String admin : System.getProperty(ADMINS_PROPERTY, "").split(",")) {
+            if (!admin.isBlank()) {
+                optionsBuilder.addAdmin(admin.trim());
+            }
+        }
+        var options = optionsBuilder.build();
+
+        var metricsReporter = new MetricsReporter(metrics, "./logs/metrics/", METRICS_DUMP_INTERVAL,
+            new DefaultDateTimeProvider());
 
         Thread serverThread = null;
         Server server = null;
@@ -83,8 +163,10 @@ public class Main {
                     server = new Server(options);
                     serverThread = new Thread(server);
                     serverThread.start();
+                    shortener.start();
+                    metricsReporter.start();
 
-                    System.out.println("Starting server on port " + PORT + "...");
+                    System.out.println("Starting server on " + host + ":" + PORT + "...");
                 }
 
                 case "stop" -> {
@@ -97,6 +179,8 @@ public class Main {
                     server.stopServer();
                     serverThread.interrupt();
                     serverThread.join();
+                    shortener.stop();
+                    metricsReporter.stop();
                     server = null;
                 }
 
@@ -106,6 +190,7 @@ public class Main {
                         break;
                     }
 
+                    fileProvider.close();
                     return;
                 }
 
@@ -118,6 +203,13 @@ public class Main {
         }
     }
 
+    private static LoadListener loadListener(Logger logger, String repository) {
+        return statistics -> logger.logInfo(
+            (statistics.completed() ? "Loaded " : "Loading ") + repository + ": " + statistics.entries() +
+                " entries, " + statistics.journalRecords() + " journal records replayed in " +
+                statistics.elapsed().toMillis() + " ms");
+    }
+
     private static void printCommands() {
         System.out.println("Available commands: ");
         System.out.println("start : starts the server");
@@ -1,10 +1,17 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.server;
 
 import bg.sofia.uni.fmi.mjt.bookmarks.contracts.Response;
-import bg.sofia.uni.fmi.mjt.bookmarks.contracts.ResponseStatus;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.CommandExecutor;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.command.CommandPipeline;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.Logger;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.Severity;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.metrics.MetricsRegistry;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.network.BufferPool;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.network.Connection;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.network.Reactor;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.network.ResponseEncoder;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.DatabaseContext;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.services.BookmarksService;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.sessions.Session;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.IdGenerator;
 
@@ -17,23 +24,53 @@ import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 public class Server implements Runnable {
+    private static final int WORKERS_TERMINATION_TIMEOUT_SECONDS = 10;
+    private static final int MAX_POOLED_BUFFERS = 1024;
+
     private final String host;
     private final int port;
+    private final int bufferSize;
+    private final int maxFrameSize;
+    private final int selectorThreads;
+    private final int workerThreads;
+    private final int workerQueueSize;
     private final Logger logger;
     private final DatabaseContext context;
-    private final ByteBuffer messageBuffer;
+    private final MetricsRegistry metrics;
+    private final LongAdder acceptedConnections;
     private final CommandExecutor commandExecutor;
-    private boolean isStarted = true;
+    private final BufferPool bufferPool;
+    private final ResponseEncoder responseEncoder;
+    private volatile boolean isStarted = true;
+
+    private Reactor[] reactors;
+    private Thread[] reactorThreads;
+    private ExecutorService workers;
+    private int nextReactor = 0;
 
     public Server(ServerOptions options) {
         this.port = options.port();
         this.host = options.host();
+        this.bufferSize = options.bufferSize();
+        this.maxFrameSize = options.maxFrameSize();
+        this.selectorThreads = options.selectorThreads();
+        this.workerThreads = options.workerThreads();
+        this.workerQueueSize = options.workerQueueSize();
         this.logger = options.logger();
         this.context = options.context();
-        this.messageBuffer = ByteBuffer.allocate(options.bufferSize());
-        this.commandExecutor = CommandExecutor.configure(options.sessionStore(), options.context(), options.logger());
+        this.metrics = options.metrics();
+        this.acceptedConnections = metrics.counter("network.connections.accepted");
+        this.commandExecutor = CommandExecutor.configure(options.sessionStore(), options.context(), options.logger(),
+            options.metrics());
+        this.bufferPool = new BufferPool(bufferSize, MAX_POOLED_BUFFERS);
+        this.responseEncoder = new ResponseEncoder(bufferPool);
     }
 
     @Override
@@ -44,6 +81,8 @@ public class Server implements Runnable {
             serverSocketChannel.bind(new InetSocketAddress(host, port));
             serverSocketChannel.configureBlocking(false);
 
+            startWorkers();
+
             Selector selector = Selector.open();
             serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
 
@@ -56,28 +95,13 @@ public class Server implements Runnable {
                 Set<SelectionKey> selectedKeys = selector.selectedKeys();
                 Iterator<SelectionKey> keyIterator = selectedKeys.iterator();
 
-
                 while (keyIterator.hasNext()) {
                     SelectionKey key = keyIterator.next();
                     try {
-                        if (key.isReadable()) {
-                            SocketChannel socketChannel = (SocketChannel) key.channel();
-
-                            messageBuffer.clear();
-                            int r = socketChannel.read(messageBuffer);
-                            if (r <= 0) {
-                                logger.logInfo(
-                                    "Nothing to read, closing channel for client " + socketChannel.getRemoteAddress());
-                                disconnect(key);
-                                continue;
-                            }
-
-                            handleKeyIsReadable(key, messageBuffer);
-                        } else if (key.isAcceptable()) {
-                            handleKeyIsAcceptable(selector, key);
+                        if (key.isAcceptable()) {
+                            handleKeyIsAcceptable(key);
                         }
                     } catch (IOException e) {
-                        disconnect(key);
                         String traceId = IdGenerator.generateId();
                         logger.logError(
                             "There is a problem with the server socket: " + e.getMessage() + ". Trace id: " + traceId);
@@ -87,14 +111,6 @@ public class Server implements Runnable {
                 }
             }
 
-            for (SelectionKey selectionKey : selector.keys()) {
-                try {
-                    disconnect(selectionKey);
-                } catch (Exception e) {
-                    //ignored
-                }
-            }
-
             selector.close();
 
         } catch (IOException e) {
@@ -104,6 +120,9 @@ public class Server implements Runnable {
             logger.logException(e, traceId);
         }
 
+        stopWorkers();
+        // Enriched bookmarks still in the pipeline are saved by the final persist
+        DIContainer.request(BookmarksService.class).shutdown();
         context.shutdown();
         logger.logInfo("Server stopped");
     }
@@ -112,47 +131,94 @@ public class Server implements Runnable {
         isStarted = false;
     }
 
-    private void handleKeyIsReadable(SelectionKey key, ByteBuffer buffer) throws IOException {
-        SocketChannel socketChannel = (SocketChannel) key.channel();
-        buffer.flip();
-        String message = new String(buffer.array(), 0, buffer.limit()).trim();
-        logger.logInfo("Message received from client " + socketChannel.getRemoteAddress() + " : " + message);
-        var commands = message.split(System.lineSeparator());
-        for (var cmd : commands) {
-            Response response;
-            try {
-                response = commandExecutor.execute(cmd, new Session(socketChannel, null));
-            } catch (Exception e) {
-                String traceId = IdGenerator.generateId();
-                logger.logError(
-                    "There is a problem with the server socket: " + e.getMessage() + ". Trace id: " + traceId);
-                logger.logException(e, traceId);
-                response = new Response("Internal server error. Trace id: " + traceId, ResponseStatus.ERROR);
+    private void startWorkers() throws IOException {
+        var queue = new ArrayBlockingQueue<Runnable>(workerQueueSize);
+        workers = new ThreadPoolExecutor(
+            workerThreads,
+            workerThreads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            queue,
+            // Never runs a command on the selector thread, CommandExecutor answers a rejection with "busy"
+            new ThreadPoolExecutor.AbortPolicy());
+        metrics.gauge("workers.queued", queue::size);
+
+        reactors = new Reactor[selectorThreads];
+        reactorThreads = new Thread[selectorThreads];
+        for (int i = 0; i < selectorThreads; i++) {
+            reactors[i] = new Reactor(this::handleMessage, logger, bufferPool, bufferSize, maxFrameSize, metrics);
+            reactorThreads[i] = new Thread(reactors[i], "selector-" + i);
+            reactorThreads[i].start();
+        }
+    }
+
+    private void stopWorkers() {
+        if (reactors != null) {
+            for (Reactor reactor : reactors) {
+                reactor.stop();
+            }
+
+            for (Thread thread : reactorThreads) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
             }
+        }
 
-            var splitResponse = response.getDataMessage().split(System.lineSeparator());
-            for (var responseMsg : splitResponse) {
-                buffer.clear();
-                buffer.put((responseMsg + System.lineSeparator()).getBytes());
-                buffer.flip();
-                socketChannel.write(buffer);
-                logger.logInfo(
-                    "Response sent to client " + socketChannel.getRemoteAddress() + " : " +
-                        response.getDataMessage().trim());
+        if (workers != null) {
+            workers.shutdown();
+            try {
+                workers.awaitTermination(WORKERS_TERMINATION_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         }
     }
 
-    private void handleKeyIsAcceptable(Selector selector, SelectionKey key) throws IOException {
+    private void handleMessage(Connection connection, String cmd) {
+        logger.log(Severity.INFO, "Message received from client {} : {}", connection.remoteAddress(), cmd);
+
+        if (connection.attachment() == null) {
+            connection.attach(new CommandPipeline(commandExecutor, workers, response -> send(connection, response)));
+        }
+
+        ((CommandPipeline) connection.attachment()).submit(cmd, new Session(connection.channel(), null));
+    }
+
+    private void send(Connection connection, Response response) {
+        ByteBuffer[] buffers = responseEncoder.encode(response.getDataMessage());
+        // Sizes are only summed up for the log line, and taken before the reactor starts draining the buffers
+        boolean logged = logger.isEnabled(Severity.INFO);
+        long size = logged ? size(buffers) : 0;
+
+        connection.send(buffers);
+        if (logged) {
+            logger.log(Severity.INFO, "Response sent to client {} : [ {} ] {} bytes", connection.remoteAddress(),
+                response.status().name(), size);
+        }
+    }
+
+    private static long size(ByteBuffer[] buffers) {
+        long size = 0;
+        for (ByteBuffer buffer : buffers) {
+            size += buffer.remaining();
+        }
+        return size;
+    }
+
+    private void handleKeyIsAcceptable(SelectionKey key) throws IOException {
         ServerSocketChannel sockChannel = (ServerSocketChannel) key.channel();
         SocketChannel accept = sockChannel.accept();
-        accept.configureBlocking(false);
-        accept.register(selector, SelectionKey.OP_READ);
-        logger.logInfo("Connection accepted from client " + accept.getRemoteAddress());
-    }
+        if (accept == null) {
+            return;
+        }
 
-    private void disconnect(SelectionKey key) throws IOException {
-        key.channel().close();
-        key.cancel();
+        accept.configureBlocking(false);
+        acceptedConnections.increment();
+        reactors[nextReactor].register(accept);
+        nextReactor = (nextReactor + 1) % reactors.length;
+        logger.log(Severity.INFO, "Connection accepted from client {}", accept.getRemoteAddress());
     }
 }
@@ -3,7 +3,11 @@ package bg.sofia.uni.fmi.mjt.bookmarks.server;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.exceptions.StopWordsException;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.DefaultLogger;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.Logger;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.metrics.DefaultMetricsRegistry;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.metrics.MetricsRegistry;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.DatabaseContext;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.services.AccessPolicy;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.services.DefaultAccessPolicy;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.sessions.DefaultSessionStore;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.sessions.SessionStore;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
@@ -12,20 +16,32 @@ import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Stopwords;
 
 import java.lang.reflect.Type;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 public class ServerOptions {
 
     private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final int DEFAULT_MAX_FRAME_SIZE = 1024 * 1024;
     private static final String DEFAULT_SERVER_HOST = "localhost";
     private static final int DEFAULT_SERVER_PORT = 8080;
+    private static final int DEFAULT_SELECTOR_THREADS = 2;
+    private static final int DEFAULT_WORKER_THREADS = 8;
+    private static final int DEFAULT_WORKER_QUEUE_SIZE = 1024;
 
     private final int port;
     private final String host;
     private final int bufferSize;
+    private final int maxFrameSize;
+    private final int selectorThreads;
+    private final int workerThreads;
+    private final int workerQueueSize;
     private final DatabaseContext context;
     private final Logger logger;
     private final SessionStore sessionStore;
+    private final MetricsRegistry metrics;
+    private final AccessPolicy accessPolicy;
 
     private static final int ALLOWED_PORT_LB = 1000;
 
@@ -36,13 +52,21 @@ public class ServerOptions {
 
         this.port = builder.port > ALLOWED_PORT_LB ? builder.port : DEFAULT_SERVER_PORT;
         this.bufferSize = builder.bufferSize > 0 ? builder.bufferSize : DEFAULT_BUFFER_SIZE;
+        this.maxFrameSize = builder.maxFrameSize > 0 ? builder.maxFrameSize : DEFAULT_MAX_FRAME_SIZE;
+        this.selectorThreads = builder.selectorThreads > 0 ? builder.selectorThreads : DEFAULT_SELECTOR_THREADS;
+        this.workerThreads = builder.workerThreads > 0 ? builder.workerThreads : DEFAULT_WORKER_THREADS;
+        this.workerQueueSize = builder.workerQueueSize > 0 ? builder.workerQueueSize : DEFAULT_WORKER_QUEUE_SIZE;
         this.host = Nullable.orDefault(builder.host, DEFAULT_SERVER_HOST);
         this.context = builder.context;
         this.logger = Nullable.orDefault(builder.logger, DefaultLogger.getDefaultLogger());
         this.sessionStore = Nullable.orDefault(builder.sessionStore, new DefaultSessionStore());
+        this.metrics = Nullable.orDefault(builder.metrics, new DefaultMetricsRegistry());
+        this.accessPolicy = new DefaultAccessPolicy(builder.admins);
         DIContainer.register(DatabaseContext.class, context);
         DIContainer.register(Logger.class, logger);
         DIContainer.register(SessionStore.class, sessionStore);
+        DIContainer.register(MetricsRegistry.class, metrics);
+        DIContainer.register(AccessPolicy.class, accessPolicy);
         for (var service : builder.serviceList.entrySet()) {
             DIContainer.register(service.getKey(), service.getValue());
         }
@@ -70,6 +94,22 @@ public class ServerOptions {
         return bufferSize;
     }
 
+    public int maxFrameSize() {
+        return maxFrameSize;
+    }
+
+    public int selectorThreads() {
+        return selectorThreads;
+    }
+
+    public int workerThreads() {
+        return workerThreads;
+    }
+
+    public int workerQueueSize() {
+        return workerQueueSize;
+    }
+
     public DatabaseContext context() {
         return context;
     }
@@ -82,19 +122,34 @@ public class ServerOptions {
         return sessionStore;
     }
 
+    public MetricsRegistry metrics() {
+        return metrics;
+    }
+
+    public AccessPolicy accessPolicy() {
+        return accessPolicy;
+    }
+
     public static class ServerOptionsBuilder {
 
         private final int port;
         private int bufferSize = 0;
+        private int maxFrameSize = 0;
+        private int selectorThreads = 0;
+        private int workerThreads = 0;
+        private int workerQueueSize = 0;
         private String host;
         private DatabaseContext context;
         private Logger logger;
         private SessionStore sessionStore;
+        private MetricsRegistry metrics;
+        private final Set<String> admins;
         private final Map<Type, Service> serviceList;
 
         private ServerOptionsBuilder(int port) {
             this.port = port;
 
+            this.admins = new HashSet<>();
             this.serviceList = new HashMap<>();
         }
 
@@ -108,6 +163,26 @@ public class ServerOptions {
             return this;
         }
 
+        public ServerOptionsBuilder setMaxFrameSize(int size) {
+            this.maxFrameSize = size;
+            return this;
+        }
+
+        public ServerOptionsBuilder setSelectorThreads(int count) {
+            this.selectorThreads = count;
+            return this;
+        }
+
+        public ServerOptionsBuilder setWorkerThreads(int count) {
+            this.workerThreads = count;
+            return this;
+        }
+
+        public ServerOptionsBuilder setWorkerQueueSize(int size) {
+            this.workerQueueSize = size;
+            return this;
+        }
+
         public ServerOptionsBuilder addDatabaseContext(DatabaseContext context) {
             this.context = context;
             return this;
@@ -123,6 +198,17 @@ public class ServerOptions {
             return this;
         }
 
+        public ServerOptionsBuilder addMetrics(MetricsRegistry metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        // Admins may run the stats command
+        public ServerOptionsBuilder addAdmin(String username) {
+            this.admins.add(username);
+            return this;
+        }
+
         public ServerOptionsBuilder addService(Type type, Service service) {
             this.serviceList.put(type, service);
             return this;
@@ -6,6 +6,8 @@ import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.DatabaseContext;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.sessions.Session;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.sessions.SessionStore;
 
+import java.util.function.Consumer;
+
 public interface Command {
     Response execute();
 
@@ -15,5 +17,7 @@ public interface Command {
 
     Command addLogger(Logger logger);
 
+    Command addProgressListener(Consumer<Response> listener);
+
     CommandType getType();
 }
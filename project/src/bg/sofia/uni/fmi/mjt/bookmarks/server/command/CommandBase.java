@@ -1,20 +1,25 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.server.command;
 
+import bg.sofia.uni.fmi.mjt.bookmarks.contracts.Response;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.Logger;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.DatabaseContext;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.sessions.Session;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.sessions.SessionStore;
 
+import java.util.function.Consumer;
+
 public abstract class CommandBase implements Command {
 
     protected SessionStore sessionStore;
     protected DatabaseContext context;
     protected Session session;
     protected Logger logger;
+    protected Consumer<Response> progress;
 
     protected CommandBase() {
         sessionStore = null;
         context = null;
+        progress = response -> { };
     }
 
     @Override
@@ -35,4 +40,10 @@ public abstract class CommandBase implements Command {
         this.logger = logger;
         return this;
     }
+
+    @Override
+    public final Command addProgressListener(Consumer<Response> listener) {
+        this.progress = listener;
+        return this;
+    }
 }
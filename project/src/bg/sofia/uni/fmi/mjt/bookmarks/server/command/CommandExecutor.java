@@ -1,30 +1,164 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.server.command;
 
 import bg.sofia.uni.fmi.mjt.bookmarks.contracts.Response;
+import bg.sofia.uni.fmi.mjt.bookmarks.contracts.ResponseStatus;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.command.common.UnknownCommand;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.LogEvent;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.Logger;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.Severity;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.metrics.DefaultMetricsRegistry;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.metrics.LatencyHistogram;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.metrics.MetricsRegistry;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.DatabaseContext;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.sessions.Session;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.sessions.SessionStore;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.IdGenerator;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 public class CommandExecutor {
 
+    private static final String METRIC_PREFIX = "command.";
+    private static final String FAILURES_SUFFIX = ".failures";
+    private static final String REJECTED_METRIC = "command.rejected";
+    private static final String BUSY_MESSAGE = "Server is busy, try again later.";
+
     private final SessionStore sessionStore;
     private final DatabaseContext context;
     private final Logger logger;
 
+    private final MetricsRegistry metrics;
+    private final Map<CommandType, LatencyHistogram> latencies = new EnumMap<>(CommandType.class);
+
     public static CommandExecutor configure(SessionStore sessionStore, DatabaseContext context, Logger logger) {
-        return new CommandExecutor(sessionStore, context, logger);
+        return new CommandExecutor(sessionStore, context, logger, new DefaultMetricsRegistry());
+    }
+
+    public static CommandExecutor configure(SessionStore sessionStore, DatabaseContext context, Logger logger,
+                                            MetricsRegistry metrics) {
+        return new CommandExecutor(sessionStore, context, logger, metrics);
     }
 
-    private CommandExecutor(SessionStore sessionStore, DatabaseContext context, Logger logger) {
+    private CommandExecutor(SessionStore sessionStore, DatabaseContext context, Logger logger,
+                            MetricsRegistry metrics) {
         this.sessionStore = sessionStore;
         this.context = context;
         this.logger = logger;
+        this.metrics = metrics;
+
+        // Looked up once, commands only touch their own histogram
+        for (CommandType type : CommandType.values()) {
+            latencies.put(type, metrics.histogram(METRIC_PREFIX + type.getName()));
+        }
     }
 
 
     public Response execute(String cmd, Session session) {
-        return CommandParser.parse(cmd).addDependencies(sessionStore, context).addSessionContext(session)
-            .addLogger(logger).execute();
+        Command command = prepare(cmd, session);
+        String user = loggedUser(session);
+        long start = System.nanoTime();
+        Response response = command.execute();
+        record(command, session, user, start, null);
+        return response;
+    }
+
+    public CompletableFuture<Response> executeAsync(String cmd, Session session, Executor executor) {
+        return executeAsync(prepare(cmd, session), session, CompletableFuture.completedFuture(null), executor);
+    }
+
+    Command prepare(String cmd, Session session) {
+        Command command;
+        try {
+            command = CommandParser.parse(cmd);
+        } catch (Exception e) {
+            String traceId = IdGenerator.generateId();
+            logger.logError("Server error on parsing command: " + e.getMessage() + ". Trace id: " + traceId);
+            logger.logException(e, traceId);
+            command = new UnknownCommand("Internal server error. Trace id: " + traceId);
+        }
+
+        return command.addDependencies(sessionStore, context).addSessionContext(session).addLogger(logger);
+    }
+
+    CompletableFuture<Response> executeAsync(Command command, Session session, CompletableFuture<?> after,
+                                             Executor executor) {
+        return after.thenApplyAsync(ignored -> executeSafely(command, session), executor)
+            .exceptionally(e -> rejected(command, e));
+    }
+
+    // A full worker queue rejects the command, the client is told to retry instead of the selector running it
+    private Response rejected(Command command, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (!(cause instanceof RejectedExecutionException)) {
+            throw error instanceof CompletionException completion ? completion : new CompletionException(cause);
+        }
+
+        metrics.counter(REJECTED_METRIC).increment();
+        logger.log(Severity.WARN, "Command {} rejected, the worker queue is full", command.getType().getName());
+        return new Response(BUSY_MESSAGE, ResponseStatus.ERROR);
+    }
+
+    // For a command whose future failed anyway, e.g. with an Error that executeSafely does not catch
+    Response failed(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        String traceId = IdGenerator.generateId();
+        logger.logError("Server error on executing command: " + cause.getMessage() + ". Trace id: " + traceId);
+        logger.logException(cause instanceof Exception e ? e : new RuntimeException(cause), traceId);
+        return new Response("Internal server error. Trace id: " + traceId, ResponseStatus.ERROR);
+    }
+
+    private Response executeSafely(Command command, Session session) {
+        String user = loggedUser(session);
+        long start = System.nanoTime();
+        try {
+            Response response = command.execute();
+            record(command, session, user, start, null);
+            return response;
+        } catch (Exception e) {
+            String traceId = IdGenerator.generateId();
+            logger.logError("Server error on executing command: " + e.getMessage() + ". Trace id: " + traceId);
+            logger.logException(e, traceId);
+            record(command, session, user, start, traceId);
+            return new Response("Internal server error. Trace id: " + traceId, ResponseStatus.ERROR);
+        }
+    }
+
+    // The user is only looked up when the command event is going to be written
+    private String loggedUser(Session session) {
+        return logger.isEnabled(Severity.INFO) ? username(session) : null;
+    }
+
+    private void record(Command command, Session session, String userBefore, long start, String traceId) {
+        long elapsed = System.nanoTime() - start;
+        latencies.get(command.getType()).record(elapsed);
+        if (traceId != null) {
+            metrics.counter(METRIC_PREFIX + command.getType().getName() + FAILURES_SUFFIX).increment();
+        }
+
+        if (!logger.isEnabled(Severity.INFO)) {
+            return;
+        }
+
+        // Logout ends the session, login starts it: whichever user is known names the command
+        String user = Nullable.orDefault(username(session), userBefore);
+        logger.log(new LogEvent(Severity.INFO, traceId == null ? "Command executed." : "Command failed.", traceId,
+            command.getType().name(), user, Duration.ofNanos(elapsed)));
+    }
+
+    private String username(Session session) {
+        if (session == null || !sessionStore.hasSession(session)) {
+            return null;
+        }
+
+        User user = sessionStore.getUser(session);
+        return user == null ? null : user.getUsername();
     }
 }
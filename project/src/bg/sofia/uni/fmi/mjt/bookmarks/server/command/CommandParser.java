@@ -3,6 +3,7 @@ package bg.sofia.uni.fmi.mjt.bookmarks.server.command;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.account.LoginCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.account.LogoutCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.account.RegisterCommand;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.command.admin.StatsCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.bookmarks.AddToCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.bookmarks.CleanupCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.bookmarks.ImportFromChromeCommand;
@@ -11,6 +12,7 @@ import bg.sofia.uni.fmi.mjt.bookmarks.server.command.bookmarks.ListCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.bookmarks.NewGroupCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.bookmarks.RemoveFromCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.bookmarks.SearchByTagsCommand;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.command.bookmarks.SearchByTextCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.bookmarks.SearchByTitleCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.common.HelpCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.common.UnknownCommand;
@@ -28,6 +30,8 @@ public class CommandParser {
     private static final String SHORTEN_PARAM = "--shorten";
     private static final String TITLE_PARAM = "--title";
     private static final String TAGS_PARAM = "--tags";
+    private static final String ALL_PARAM = "--all";
+    private static final String TEXT_PARAM = "--text";
     private static final int ARGS_SIZE_0 = 0;
     private static final int ARGS_SIZE_1 = 1;
     private static final int ARGS_SIZE_2 = 2;
@@ -59,6 +63,7 @@ public class CommandParser {
             case SEARCH -> search(args);
             case CLEANUP -> cleanup(args);
             case IMPORT_FROM_CHROME -> importFromChrome(str);
+            case STATS -> stats(args);
             case UNKNOWN -> new UnknownCommand();
         };
     }
@@ -83,6 +88,14 @@ public class CommandParser {
         return new CleanupCommand();
     }
 
+    private static Command stats(List<String> args) {
+        if (args.size() != ARGS_SIZE_0) {
+            return new UnknownCommand("Invalid arguments count. Stats command has no arguments.");
+        }
+
+        return new StatsCommand();
+    }
+
     private static Command list(List<String> args) {
         if (args.size() == ARGS_SIZE_0) {
             return new ListCommand();
@@ -104,8 +117,18 @@ public class CommandParser {
             return new SearchByTitleCommand(args.stream().skip(1).collect(Collectors.joining(" ")));
         }
 
+        if (args.get(0).equals(TEXT_PARAM)) {
+            return new SearchByTextCommand(args.stream().skip(1).collect(Collectors.joining(" ")));
+        }
+
         if (args.get(0).equals(TAGS_PARAM)) {
-            return new SearchByTagsCommand(args.stream().skip(1).collect(Collectors.toList()));
+            boolean matchAll = args.get(1).equals(ALL_PARAM);
+            var tags = args.stream().skip(matchAll ? 2 : 1).collect(Collectors.toList());
+            if (tags.isEmpty()) {
+                return new UnknownCommand();
+            }
+
+            return new SearchByTagsCommand(tags, matchAll);
         }
 
         return new UnknownCommand();
@@ -0,0 +1,86 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.command;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.contracts.Response;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.sessions.Session;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+public class CommandPipeline {
+
+    private final CommandExecutor executor;
+    private final Executor workers;
+    private final Consumer<Response> sink;
+
+    private final List<CompletableFuture<Response>> inFlight;
+    private final Map<Long, Response> completed;
+    private CompletableFuture<?> barrier;
+    private long nextSequence;
+    private long nextToDeliver;
+
+    public CommandPipeline(CommandExecutor executor, Executor workers, Consumer<Response> sink) {
+        this.executor = executor;
+        this.workers = workers;
+        this.sink = sink;
+        this.inFlight = new ArrayList<>();
+        this.completed = new HashMap<>();
+        this.barrier = CompletableFuture.completedFuture(null);
+        this.nextSequence = 0;
+        this.nextToDeliver = 0;
+    }
+
+    public synchronized CompletableFuture<Response> submit(String cmd, Session session) {
+        long sequence = nextSequence++;
+        Command command = executor.prepare(cmd, session)
+            .addProgressListener(response -> progress(sequence, response));
+
+        CompletableFuture<Response> result;
+        if (command.getType().isIndependent()) {
+            inFlight.removeIf(CompletableFuture::isDone);
+            result = executor.executeAsync(command, session, settled(barrier), workers);
+            inFlight.add(result);
+        } else {
+            var dependencies = new ArrayList<CompletableFuture<?>>(inFlight);
+            dependencies.add(barrier);
+
+            result = executor.executeAsync(
+                command,
+                session,
+                settled(CompletableFuture.allOf(dependencies.toArray(CompletableFuture[]::new))),
+                workers);
+            barrier = result;
+            inFlight.clear();
+        }
+
+        result.whenComplete((response, error) -> deliver(sequence, error == null ? response : executor.failed(error)));
+        return result;
+    }
+
+    // A failed command must not fail the ones that wait for it
+    private static CompletableFuture<?> settled(CompletableFuture<?> future) {
+        return future.handle((result, error) -> null);
+    }
+
+    // Progress is best effort: it is only sent while no earlier response is still waiting to be delivered
+    private synchronized void progress(long sequence, Response response) {
+        if (sequence == nextToDeliver) {
+            sink.accept(response);
+        }
+    }
+
+    // Responses are buffered until every response requested before them is delivered
+    private synchronized void deliver(long sequence, Response response) {
+        completed.put(sequence, response);
+
+        Response next;
+        while ((next = completed.remove(nextToDeliver)) != null) {
+            sink.accept(next);
+            nextToDeliver++;
+        }
+    }
+}
@@ -1,26 +1,35 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.server.command;
 
 public enum CommandType {
-    HELP("help"),
-    UNKNOWN("unknown"),
-    REGISTER("register"),
-    LOGIN("login"),
-    LOGOUT("logout"),
-    NEW_GROUP("new-group"),
-    ADD_TO("add-to"),
-    REMOVE_FROM("remove-from"),
-    LIST("list"),
-    SEARCH("search"),
-    CLEANUP("cleanup"),
-    IMPORT_FROM_CHROME("import-from-chrome");
+    HELP("help", true),
+    UNKNOWN("unknown", true),
+    REGISTER("register", false),
+    LOGIN("login", false),
+    LOGOUT("logout", false),
+    NEW_GROUP("new-group", false),
+    ADD_TO("add-to", true),
+    REMOVE_FROM("remove-from", false),
+    LIST("list", false),
+    SEARCH("search", false),
+    CLEANUP("cleanup", false),
+    IMPORT_FROM_CHROME("import-from-chrome", true),
+    STATS("stats", true);
 
     private final String name;
+    private final boolean independent;
 
-    CommandType(String name) {
+    CommandType(String name, boolean independent) {
         this.name = name;
+        this.independent = independent;
     }
 
     public String getName() {
         return name;
     }
+
+    // Independent commands of a connection may run concurrently with each other,
+    // all other commands wait for the ones before them and block the ones after them
+    public boolean isIndependent() {
+        return independent;
+    }
 }
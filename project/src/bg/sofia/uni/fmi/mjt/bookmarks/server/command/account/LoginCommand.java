@@ -7,6 +7,7 @@ import bg.sofia.uni.fmi.mjt.bookmarks.server.command.CommandBase;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.CommandType;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.exceptions.PasswordHasherException;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.RepositoryIndexes;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.sessions.Session;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.IdGenerator;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
@@ -33,7 +34,7 @@ public class LoginCommand extends CommandBase {
             return new Response("User already logged in.", ResponseStatus.ERROR);
         }
 
-        Optional<User> userOpt = context.users().find(user -> user.getUsername().equals(username));
+        Optional<User> userOpt = context.users().findBy(RepositoryIndexes.USER_BY_USERNAME, username);
 
         if (userOpt.isEmpty()) {
             logger.logInfo("Invalid username when logging: " + username);
@@ -7,6 +7,7 @@ import bg.sofia.uni.fmi.mjt.bookmarks.server.command.CommandBase;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.CommandType;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.exceptions.PasswordHasherException;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.RepositoryIndexes;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.sessions.Session;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.IdGenerator;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
@@ -32,7 +33,7 @@ public class RegisterCommand extends CommandBase {
             return new Response("Already logged in.", ResponseStatus.ERROR);
         }
 
-        if (context.users().any(user -> user.getUsername().equals(username))) {
+        if (context.users().findBy(RepositoryIndexes.USER_BY_USERNAME, username).isPresent()) {
             logger.logInfo("User tried to register existing username: " + username);
             return new Response("Username already exists.", ResponseStatus.ERROR);
         }
@@ -55,7 +56,12 @@ public class RegisterCommand extends CommandBase {
 
         User user = new User(IdGenerator.generateId(), username, hashedPassword);
 
-        context.users().add(user);
+        // The check above only saves the hashing, another connection may have taken the name since
+        if (!context.users().addIfAbsent(RepositoryIndexes.USER_BY_USERNAME, username, user)) {
+            logger.logInfo("User tried to register existing username: " + username);
+            return new Response("Username already exists.", ResponseStatus.ERROR);
+        }
+
         sessionStore.register(new Session(session.key(), user));
 
         logger.logInfo("User registered: " + username);
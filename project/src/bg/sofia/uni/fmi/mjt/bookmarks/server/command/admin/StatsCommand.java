@@ -0,0 +1,36 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.command.admin;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.contracts.Response;
+import bg.sofia.uni.fmi.mjt.bookmarks.contracts.ResponseStatus;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.DIContainer;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.command.AuthenticatedCommand;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.command.CommandType;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.metrics.MetricsRegistry;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.services.AccessPolicy;
+
+public class StatsCommand extends AuthenticatedCommand {
+
+    private final MetricsRegistry metrics;
+    private final AccessPolicy accessPolicy;
+
+    public StatsCommand() {
+        metrics = DIContainer.request(MetricsRegistry.class);
+        accessPolicy = DIContainer.request(AccessPolicy.class);
+    }
+
+    @Override
+    protected Response authenticatedExecute() {
+        if (!accessPolicy.isAdmin(user)) {
+            logger.logInfo("User " + user.getUsername() + " tried to view server statistics.");
+            return new Response("Only admins can view server statistics.", ResponseStatus.ERROR);
+        }
+
+        logger.logInfo("Server statistics sent to user " + user.getUsername());
+        return new Response(metrics.report(), ResponseStatus.OK);
+    }
+
+    @Override
+    public CommandType getType() {
+        return CommandType.STATS;
+    }
+}
@@ -44,10 +44,11 @@ public class AddToCommand extends AuthenticatedCommand {
             return new Response("Bookmark already exists.", ResponseStatus.ERROR);
         }
 
+        var service = DIContainer.request(BookmarksService.class);
+
         Bookmark bookmark;
         try {
-            bookmark =
-                DIContainer.request(BookmarksService.class).generateBookmark(url, actualGroup, isShortened, user);
+            bookmark = service.createPlaceholder(url, actualGroup, user);
         } catch (InvalidBookmarkException e) {
             String traceId = IdGenerator.generateId();
             logger.logError("Server error on saving bookmark. Trace id: " + traceId);
@@ -55,10 +56,20 @@ public class AddToCommand extends AuthenticatedCommand {
             return new Response("Invalid url provided. Trace id: " + traceId, ResponseStatus.ERROR);
         }
 
-        context.bookmarks().add(bookmark);
+        synchronized (user) {
+            if (user.getBookmarks().stream().anyMatch(x -> x.getUrl().equals(url))) {
+                logger.logInfo("User " + user.getUsername() + " tried to add existing bookmark " + url);
+                return new Response("Bookmark already exists.", ResponseStatus.ERROR);
+            }
+
+            context.bookmarks().add(bookmark);
+        }
+
+        // Title, keywords and the short url are fetched in the background
+        service.enrich(bookmark, isShortened);
 
         logger.logInfo("Bookmark " + url + " created for user " + user.getUsername());
-        return new Response("Bookmark added successfully.", ResponseStatus.OK);
+        return new Response("Bookmark added successfully. Details are being fetched.", ResponseStatus.OK);
     }
 
 
@@ -5,40 +5,66 @@ import bg.sofia.uni.fmi.mjt.bookmarks.contracts.ResponseStatus;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.DIContainer;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.AuthenticatedCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.CommandType;
-import bg.sofia.uni.fmi.mjt.bookmarks.server.exceptions.InvalidBookmarkException;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.services.BookmarksService;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.IdGenerator;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class CleanupCommand extends AuthenticatedCommand {
 
+    private static final int PROGRESS_STEP = 50;
+
     private final BookmarksService service;
 
     public CleanupCommand() {
         service = DIContainer.request(BookmarksService.class);
     }
 
-    private boolean isValid(Bookmark bookmark) {
-        try {
-            return !service.validateUrl(bookmark.getUrl());
-        } catch (InvalidBookmarkException e) {
-            String traceId = IdGenerator.generateId();
-            logger.logError("Server error on cleaning up bookmarks. Trace id: " + traceId);
-            logger.logException(e, IdGenerator.generateId());
-            return false;
-        }
+    // A bookmark that cannot be checked is kept
+    private CompletableFuture<Boolean> isInvalid(Bookmark bookmark) {
+        return service.validateUrlAsync(bookmark.getUrl())
+            .handle((valid, e) -> {
+                if (e == null) {
+                    return !valid;
+                }
+
+                String traceId = IdGenerator.generateId();
+                logger.logError("Server error on cleaning up bookmarks. Trace id: " + traceId);
+                logger.logException(e instanceof Exception exception ? exception : new RuntimeException(e), traceId);
+                return false;
+            });
     }
 
     @Override
     protected Response authenticatedExecute() {
-        user.getBookmarks()
-            .stream()
-            .filter(this::isValid)
-            .toList()
-            .forEach(x -> context.bookmarks().remove(x.getKey()));
+        List<Bookmark> bookmarks = user.getBookmarks();
+        AtomicInteger checked = new AtomicInteger();
+        AtomicInteger removed = new AtomicInteger();
+
+        // Validation runs concurrently (bounded by the service), results are applied as they come in
+        var checks = bookmarks.stream()
+            .map(bookmark -> isInvalid(bookmark).thenAccept(invalid -> {
+                if (invalid) {
+                    context.bookmarks().remove(bookmark.getKey());
+                    removed.incrementAndGet();
+                }
+
+                int count = checked.incrementAndGet();
+                if (count % PROGRESS_STEP == 0 && count < bookmarks.size()) {
+                    progress.accept(new Response("Checked " + count + " of " + bookmarks.size() + " bookmarks, " +
+                        removed.get() + " removed so far.", ResponseStatus.OK));
+                }
+            }))
+            .toArray(CompletableFuture[]::new);
+
+        CompletableFuture.allOf(checks).join();
 
         logger.logInfo("Bookmarks cleaned up for user " + user.getUsername());
-        return new Response("Bookmarks cleaned up successfully.", ResponseStatus.OK);
+        return new Response("Bookmarks cleaned up successfully. Removed " + removed.get() + " of " +
+            bookmarks.size() + ".", ResponseStatus.OK);
     }
 
 
@@ -6,6 +6,7 @@ import bg.sofia.uni.fmi.mjt.bookmarks.server.DIContainer;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.AuthenticatedCommand;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.command.CommandType;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.exceptions.InvalidBookmarkException;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Group;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.services.BookmarksService;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.IdGenerator;
@@ -24,21 +25,28 @@ public class ImportFromChromeCommand extends AuthenticatedCommand {
     @Override
     protected Response authenticatedExecute() {
 
-        var chromeGroup =
-            user.getGroups()
-                .stream()
-                .filter(x -> x.getName().equals(CHROME_GROUP))
-                .findFirst()
-                .orElse(new Group(IdGenerator.generateId(), CHROME_GROUP, user));
+        Group chromeGroup;
+        synchronized (user) {
+            chromeGroup =
+                user.getGroups()
+                    .stream()
+                    .filter(x -> x.getName().equals(CHROME_GROUP))
+                    .findFirst()
+                    .orElse(new Group(IdGenerator.generateId(), CHROME_GROUP, user));
 
-        if (user.getGroups().stream().noneMatch(x -> x == chromeGroup)) {
-            context.groups().add(chromeGroup);
+            if (user.getGroups().stream().noneMatch(x -> x == chromeGroup)) {
+                context.groups().add(chromeGroup);
+            }
         }
 
         BookmarksService service = DIContainer.request(BookmarksService.class);
 
         try {
-            context.bookmarks().add(service.generateBookmark(url, chromeGroup, false, user));
+            Bookmark bookmark = service.createPlaceholder(url, chromeGroup, user);
+            context.bookmarks().add(bookmark);
+
+            // Fetched in the background like add-to, so duplicates in a batch are served by the page cache
+            service.enrich(bookmark, false);
         } catch (InvalidBookmarkException e) {
             String traceId = IdGenerator.generateId();
             logger.logError("Server error on importing bookmarks from chrome. Trace id: " + traceId);
@@ -7,9 +7,15 @@ import java.util.List;
 
 public class SearchByTagsCommand extends SearchCommand {
     private final List<String> tags;
+    private final boolean matchAll;
 
     public SearchByTagsCommand(List<String> tags) {
+        this(tags, false);
+    }
+
+    public SearchByTagsCommand(List<String> tags, boolean matchAll) {
         this.tags = tags;
+        this.matchAll = matchAll;
         Nullable.throwIfNull(tags);
         if (tags.size() == 0) {
             throw new IllegalArgumentException("Tags cannot be 0.");
@@ -18,7 +24,6 @@ public class SearchByTagsCommand extends SearchCommand {
 
     @Override
     protected List<Bookmark> searchByCriteria() {
-        return user.getBookmarks().stream().filter(x -> x.getKeywords().stream().anyMatch(tags::contains))
-            .toList();
+        return context.searchIndex().forUser(user).searchByTags(tags, matchAll);
     }
 }
@@ -0,0 +1,21 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.command.bookmarks;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
+
+import java.util.List;
+
+public class SearchByTextCommand extends SearchCommand {
+
+    private final String query;
+
+    public SearchByTextCommand(String query) {
+        this.query = query;
+        Nullable.throwIfNull(query);
+    }
+
+    @Override
+    protected List<Bookmark> searchByCriteria() {
+        return context.searchIndex().forUser(user).searchByText(query);
+    }
+}
@@ -16,8 +16,7 @@ public class SearchByTitleCommand extends SearchCommand {
 
     @Override
     protected List<Bookmark> searchByCriteria() {
-        return user.getBookmarks().stream().filter(x -> x.getTitle().toLowerCase().contains(title.toLowerCase()))
-            .toList();
+        return context.searchIndex().forUser(user).searchByTitle(title);
     }
 
 }
@@ -15,8 +15,10 @@ public class HelpCommand extends CommandBase {
         new-group <name> - creates new group
         add-to <group> <url> {--shorten} - add bookmark to group with option to shorten the link
         list {--group-name <group>} - list all bookmarks with option to show only certain group
-        search (--title <title> | --tags <tag> [<tag> ...]) - search by title or one or multiple tags
+        search (--title <title> | --tags {--all} <tag> [<tag> ...]) - search by title or tags, --all requires every tag
+        search --text <query> - search page content: "exact phrase", -excluded, OR between alternatives
         remove-from <group> <url> - remove bookmark from group
+        stats - server metrics, admins only
         """;
 
     @Override
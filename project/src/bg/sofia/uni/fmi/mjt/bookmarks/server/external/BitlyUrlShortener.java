@@ -3,6 +3,7 @@ package bg.sofia.uni.fmi.mjt.bookmarks.server.external;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.exceptions.UrlShortenerException;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
 import com.google.gson.Gson;
+import com.google.gson.annotations.SerializedName;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
@@ -15,16 +16,21 @@ public class BitlyUrlShortener implements UrlShortener {
 
     private static final String BITLY_API_URL = "https://api-ssl.bitly.com/v4/shorten";
     private static final String AUTH_HEADER_VALUE = "INSERT_API_KEY_HERE";
-    private static final String REQUEST_BODY_PATTERN = "{\"long_url\":\"%s\"}";
 
     private final Gson gson;
     private final HttpClient client;
     private final String authToken;
+    private final URI apiUrl;
 
-    public BitlyUrlShortener(HttpClient client, String authToken) {
+    public BitlyUrlShortener(HttpClient client, String authToken, URI apiUrl) {
         this.client = client;
         this.gson = new Gson();
         this.authToken = authToken;
+        this.apiUrl = apiUrl;
+    }
+
+    public BitlyUrlShortener(HttpClient client, String authToken) {
+        this(client, authToken, URI.create(BITLY_API_URL));
     }
 
     public BitlyUrlShortener(HttpClient client) {
@@ -35,10 +41,11 @@ public class BitlyUrlShortener implements UrlShortener {
     public String shorten(String url) throws UrlShortenerException {
         Nullable.throwIfNull(url);
 
-        String body = String.format(REQUEST_BODY_PATTERN, url);
+        // Serialized rather than formatted, so quotes and backslashes in the url are escaped
+        String body = gson.toJson(new ShortenRequest(url));
 
         HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(BITLY_API_URL))
+            .uri(apiUrl)
             .setHeader("Content-Type", "application/json")
             .setHeader("Authorization", authToken)
             .POST(HttpRequest.BodyPublishers.ofString(body))
@@ -60,4 +67,7 @@ public class BitlyUrlShortener implements UrlShortener {
 
         return shorten.link();
     }
+
+    private record ShortenRequest(@SerializedName("long_url") String longUrl) {
+    }
 }
@@ -0,0 +1,159 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.external;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.exceptions.UrlShortenerException;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.ShortLink;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.Repository;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Decorates another shortener: results are kept in a repository so a url is shortened only once,
+// concurrent requests for the same url share one call and the calls to the delegate run on a
+// bounded pool, each retried with exponential backoff
+public class CachingUrlShortener implements UrlShortener {
+
+    private static final int DEFAULT_PARALLELISM = 8;
+    private static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final Duration DEFAULT_BACKOFF = Duration.ofMillis(200);
+
+    private final UrlShortener delegate;
+    private final Repository<String, ShortLink> store;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final ExecutorService executor;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private CachingUrlShortener(CachingUrlShortenerBuilder builder) {
+        this.delegate = builder.delegate;
+        this.store = builder.store;
+        this.maxAttempts = builder.maxAttempts;
+        this.backoff = builder.backoff;
+        this.executor = Executors.newFixedThreadPool(builder.parallelism, runnable -> {
+            var thread = new Thread(runnable, "url-shortener");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static CachingUrlShortenerBuilder configure(UrlShortener delegate, Repository<String, ShortLink> store) {
+        return new CachingUrlShortenerBuilder(delegate, store);
+    }
+
+    @Override
+    public String shorten(String url) throws UrlShortenerException {
+        Nullable.throwIfNull(url);
+
+        try {
+            return shortenAsync(url).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UrlShortenerException cause) {
+                throw cause;
+            }
+            throw new UrlShortenerException("Unable to complete the request.", e.getCause());
+        }
+    }
+
+    public CompletableFuture<String> shortenAsync(String url) {
+        var stored = store.get(url);
+        if (stored.isPresent()) {
+            return CompletableFuture.completedFuture(stored.get().getShortened());
+        }
+
+        // Registered before the first attempt starts, so even an instant result finds its entry to remove
+        var result = new CompletableFuture<String>();
+        var existing = inFlight.putIfAbsent(url, result);
+        if (existing != null) {
+            return existing;
+        }
+
+        // The previous call for this url may have been stored and left in between
+        stored = store.get(url);
+        if (stored.isPresent()) {
+            finish(url, result, stored.get().getShortened(), null);
+            return result;
+        }
+
+        attempt(url, 1, result, executor);
+        return result;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void attempt(String url, int attempt, CompletableFuture<String> result, Executor runOn) {
+        CompletableFuture.runAsync(() -> {
+            try {
+                String shortened = delegate.shorten(url);
+
+                // Stored before the in-flight entry goes away, a later caller finds one or the other.
+                // persist() only rewrites the snapshot once the journal has grown past its threshold
+                store.add(new ShortLink(url, shortened));
+                store.persist();
+                finish(url, result, shortened, null);
+            } catch (Exception e) {
+                if (attempt >= maxAttempts) {
+                    finish(url, result, null, e);
+                    return;
+                }
+
+                attempt(url, attempt + 1, result,
+                    CompletableFuture.delayedExecutor(delay(attempt), TimeUnit.MILLISECONDS, executor));
+            }
+        }, runOn);
+    }
+
+    // Leaves the in-flight map before the callers wake up, so a failed url is tried afresh by the next one
+    private void finish(String url, CompletableFuture<String> result, String shortened, Exception error) {
+        inFlight.remove(url, result);
+        if (error != null) {
+            result.completeExceptionally(error);
+        } else {
+            result.complete(shortened);
+        }
+    }
+
+    // Jittered, so retries for a batch of failed urls do not hit the service at the same moment
+    private long delay(int attempt) {
+        long ceiling = backoff.toMillis() << (attempt - 1);
+        return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+    }
+
+    public static class CachingUrlShortenerBuilder {
+
+        private final UrlShortener delegate;
+        private final Repository<String, ShortLink> store;
+        private int parallelism = DEFAULT_PARALLELISM;
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+        private Duration backoff = DEFAULT_BACKOFF;
+
+        private CachingUrlShortenerBuilder(UrlShortener delegate, Repository<String, ShortLink> store) {
+            this.delegate = delegate;
+            this.store = store;
+        }
+
+        public CachingUrlShortenerBuilder configureParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public CachingUrlShortenerBuilder configureRetries(int maxAttempts, Duration backoff) {
+            this.maxAttempts = maxAttempts;
+            this.backoff = backoff;
+            return this;
+        }
+
+        public CachingUrlShortener build() {
+            return new CachingUrlShortener(this);
+        }
+    }
+}
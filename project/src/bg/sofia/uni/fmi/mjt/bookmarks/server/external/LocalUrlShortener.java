@@ -0,0 +1,165 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.external;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.exceptions.UrlShortenerException;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.ShortCode;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.Repository;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Base62;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// Shortens without leaving the server: the code is the base62 form of a hash of the url, so shortening
+// the same url again finds the same code. A code taken by another url moves on to the next probe.
+// Codes are kept in the given repository and resolved by a small embedded HTTP endpoint
+public class LocalUrlShortener implements UrlShortener {
+
+    private static final String DEFAULT_HOST = "localhost";
+    private static final int DEFAULT_PORT = 8081;
+    private static final long CODE_SPACE = 62L * 62 * 62 * 62 * 62 * 62 * 62;
+    private static final int MAX_PROBES = 16;
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final String LOCATION_HEADER = "Location";
+    private static final int STOP_DELAY_SECONDS = 1;
+
+    private final Repository<String, ShortCode> codes;
+    private final String baseUrl;
+    private final String host;
+    private final int port;
+    private HttpServer server;
+
+    private LocalUrlShortener(LocalUrlShortenerBuilder builder) {
+        this.codes = builder.codes;
+        this.baseUrl = builder.baseUrl.endsWith("/") ? builder.baseUrl : builder.baseUrl + "/";
+        this.host = builder.host;
+        this.port = builder.port;
+    }
+
+    // The base url is what clients see, it is not derived from the bound address
+    public static LocalUrlShortenerBuilder configure(Repository<String, ShortCode> codes, String baseUrl) {
+        return new LocalUrlShortenerBuilder(codes, baseUrl);
+    }
+
+    @Override
+    public synchronized String shorten(String url) throws UrlShortenerException {
+        Nullable.throwIfNull(url);
+
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            String code = code(url, probe);
+            var existing = codes.get(code);
+
+            if (existing.isEmpty()) {
+                codes.add(new ShortCode(code, url));
+                return baseUrl + code;
+            }
+
+            if (existing.get().getUrl().equals(url)) {
+                return baseUrl + code;
+            }
+        }
+
+        throw new UrlShortenerException("No free short code for " + url);
+    }
+
+    public String resolve(String code) {
+        return codes.get(code).map(ShortCode::getUrl).orElse(null);
+    }
+
+    public synchronized void start() {
+        if (server != null) {
+            return;
+        }
+
+        try {
+            server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        server.createContext("/", this::redirect);
+        server.start();
+    }
+
+    // The bound port, configurePort(0) picks a free one
+    public synchronized int port() {
+        return server == null ? port : server.getAddress().getPort();
+    }
+
+    // New codes reach the mapped file through the page cache right away, stopping forces them to disk
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(STOP_DELAY_SECONDS);
+            server = null;
+        }
+
+        codes.persist();
+    }
+
+    private void redirect(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_BAD_METHOD, -1);
+                return;
+            }
+
+            String url = resolve(exchange.getRequestURI().getPath().substring(1));
+            if (url == null) {
+                exchange.sendResponseHeaders(HttpURLConnection.HTTP_NOT_FOUND, -1);
+                return;
+            }
+
+            exchange.getResponseHeaders().set(LOCATION_HEADER, url);
+            exchange.sendResponseHeaders(HttpURLConnection.HTTP_MOVED_PERM, -1);
+        }
+    }
+
+    private static String code(String url, int probe) {
+        try {
+            var digest = MessageDigest.getInstance(HASH_ALGORITHM);
+            digest.update(url.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) probe);
+
+            long hash = ByteBuffer.wrap(digest.digest()).getLong() & Long.MAX_VALUE;
+            return Base62.encode(hash % CODE_SPACE);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static class LocalUrlShortenerBuilder {
+
+        private final Repository<String, ShortCode> codes;
+        private final String baseUrl;
+        private String host = DEFAULT_HOST;
+        private int port = DEFAULT_PORT;
+
+        private LocalUrlShortenerBuilder(Repository<String, ShortCode> codes, String baseUrl) {
+            Nullable.throwIfAnyNull(codes, baseUrl);
+            this.codes = codes;
+            this.baseUrl = baseUrl;
+        }
+
+        // The interface the redirect endpoint listens on
+        public LocalUrlShortenerBuilder configureHost(String host) {
+            this.host = host;
+            return this;
+        }
+
+        public LocalUrlShortenerBuilder configurePort(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public LocalUrlShortener build() {
+            return new LocalUrlShortener(this);
+        }
+    }
+}
@@ -9,24 +9,39 @@ import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.datetime.DateTimeProvider;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.datetime.DefaultDateTimeProvider;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.function.Supplier;
 
 public class DefaultLogger implements Logger {
 
+    private static final String PLACEHOLDER = "{}";
+    private static final int INITIAL_BUFFER_SIZE = 256;
+    private static final int MAX_RETAINED_BUFFER = 16 * 1024;
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
     private final Severity consoleSeverity;
     private final Severity fileSeverity;
+    private final LogFormat fileFormat;
 
     private final DateTimeProvider dateTimeProvider;
     private final ConsoleProvider consoleProvider;
     private final FileProvider fileProvider;
 
+    private final InfoSampler sampler;
+    private final ExceptionDeduplicator deduplicator;
+
     private DefaultLogger(BookmarksLoggerBuilder builder) {
         this.consoleSeverity = builder.consoleSeverity;
         this.fileSeverity = builder.fileSeverity;
+        this.fileFormat = builder.fileFormat;
 
         this.dateTimeProvider = Nullable.orDefault(builder.dateTimeProvider, new DefaultDateTimeProvider());
         this.consoleProvider = Nullable.orDefault(builder.consoleProvider, new DefaultConsoleProvider());
         this.fileProvider = Nullable.orDefault(builder.fileProvider, new DefaultFileProvider());
+
+        this.sampler = new InfoSampler(builder.infoPerSecond);
+        this.deduplicator = new ExceptionDeduplicator(builder.deduplicationWindow);
     }
 
     public static BookmarksLoggerBuilder configure() {
@@ -57,6 +72,13 @@ public class DefaultLogger implements Logger {
 
     @Override
     public void logException(Exception e, String id) {
+        String first = deduplicator.firstTraceId(e, id);
+        if (first != null) {
+            log(new LogEvent(Severity.ERROR,
+                "Repeated " + ExceptionDeduplicator.fingerprint(e) + ", stack trace under trace id " + first, id));
+            return;
+        }
+
         try {
             fileProvider.writeError(e, id);
         } catch (LoggerOperationException ex) {
@@ -66,38 +88,220 @@ public class DefaultLogger implements Logger {
 
     @Override
     public void log(Severity severity, String message) {
+        if (skip(severity)) {
+            return;
+        }
+
+        emit(severity, message().append(message), null);
+    }
+
+    @Override
+    public boolean isEnabled(Severity severity) {
+        return accepts(fileSeverity, severity) || accepts(consoleSeverity, severity);
+    }
+
+    @Override
+    public void log(Severity severity, Supplier<String> message) {
+        if (skip(severity)) {
+            return;
+        }
+
+        String text = message.get();
+        emit(severity, message().append(text), null);
+    }
+
+    @Override
+    public void log(Severity severity, String format, Object arg) {
+        if (skip(severity)) {
+            return;
+        }
+
+        emit(severity, format(message(), format, arg), null);
+    }
+
+    @Override
+    public void log(Severity severity, String format, Object first, Object second) {
+        if (skip(severity)) {
+            return;
+        }
+
+        emit(severity, format(message(), format, first, second), null);
+    }
+
+    @Override
+    public void log(Severity severity, String format, Object... args) {
+        if (skip(severity)) {
+            return;
+        }
+
+        emit(severity, format(message(), format, args), null);
+    }
+
+    @Override
+    public void log(LogEvent event) {
+        if (skip(event.severity())) {
+            return;
+        }
+
+        emit(event.severity(), message().append(event.message()), event);
+    }
+
+    // A sink configured with NONE takes nothing
+    private static boolean accepts(Severity sink, Severity severity) {
+        return sink != Severity.NONE && sink.getValue() <= severity.getValue();
+    }
 
+    private boolean skip(Severity severity) {
+        return !isEnabled(severity) || !sampler.admit(severity);
+    }
+
+    private static StringBuilder message() {
+        StringBuilder message = BUFFERS.get().message;
+        message.setLength(0);
+        return message;
+    }
+
+    private static StringBuilder format(StringBuilder builder, String format, Object... args) {
+        int from = 0;
+        int next = 0;
+        int at;
+        while (next < args.length && (at = format.indexOf(PLACEHOLDER, from)) >= 0) {
+            builder.append(format, from, at).append(args[next++]);
+            from = at + PLACEHOLDER.length();
+        }
+
+        return builder.append(format, from, format.length());
+    }
+
+    // The message is trimmed as before and rendered once per format, the console always gets text
+    private void emit(Severity severity, StringBuilder message, LogEvent event) {
         var dateTime = dateTimeProvider.getCurrentTime();
 
-        if (fileSeverity.getValue() <= severity.getValue()) {
-            logFile(severity, dateTime, message);
+        int length = message.length();
+        while (length > 0 && message.charAt(length - 1) <= ' ') {
+            length--;
+        }
+        message.setLength(length);
+
+        String text = null;
+        if (accepts(fileSeverity, severity)) {
+            String line = fileFormat == LogFormat.JSON
+                ? json(severity, dateTime, message, event)
+                : (text = text(severity, dateTime, message, event));
+            logFile(line);
+        }
+
+        if (accepts(consoleSeverity, severity)) {
+            logConsole(text != null ? text : text(severity, dateTime, message, event));
+        }
+
+        BUFFERS.get().release();
+
+        long skipped = sampler.takeSkipped();
+        if (skipped > 0 && isEnabled(Severity.INFO)) {
+            emit(Severity.INFO, message().append(skipped).append(" info messages sampled out"), null);
+        }
+    }
+
+    private static String text(Severity severity, LocalDateTime dateTime, CharSequence message, LogEvent event) {
+        StringBuilder line = BUFFERS.get().line;
+        line.setLength(0);
+        line.append('[').append(severity.name()).append("] [").append(dateTime).append("] ").append(message);
+
+        if (event != null) {
+            appendField(line, "traceId", event.traceId());
+            appendField(line, "command", event.command());
+            appendField(line, "user", event.user());
+            if (event.latency() != null) {
+                line.append(" latencyMicros=").append(event.latency().toNanos() / 1000);
+            }
+        }
+
+        return line.append(System.lineSeparator()).toString();
+    }
+
+    private static void appendField(StringBuilder line, String name, String value) {
+        if (value != null) {
+            line.append(' ').append(name).append('=').append(value);
         }
+    }
 
-        if (consoleSeverity.getValue() <= severity.getValue()) {
-            logConsole(severity, dateTime, message);
+    private static String json(Severity severity, LocalDateTime dateTime, CharSequence message, LogEvent event) {
+        StringBuilder line = BUFFERS.get().line;
+        line.setLength(0);
+        line.append("{\"timestamp\":\"").append(dateTime).append("\",\"severity\":\"").append(severity.name())
+            .append('"');
+        appendJson(line, "message", message);
+
+        if (event != null) {
+            appendJson(line, "traceId", event.traceId());
+            appendJson(line, "command", event.command());
+            appendJson(line, "user", event.user());
+            if (event.latency() != null) {
+                line.append(",\"latencyMicros\":").append(event.latency().toNanos() / 1000);
+            }
         }
+
+        return line.append('}').append(System.lineSeparator()).toString();
     }
 
-    private String getMessage(Severity severity, LocalDateTime dateTime, String message) {
-        return ("[" + severity.name() + "] [" + dateTime + "] " + message).trim() + System.lineSeparator();
+    private static void appendJson(StringBuilder line, String name, CharSequence value) {
+        if (value == null) {
+            return;
+        }
+
+        line.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                case '\t' -> line.append("\\t");
+                default -> {
+                    if (c < ' ') {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
     }
 
-    private void logFile(Severity severity, LocalDateTime dateTime, String message) {
+    private void logFile(String message) {
         try {
-            fileProvider.write(getMessage(severity, dateTime, message));
+            fileProvider.write(message);
         } catch (LoggerOperationException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private void logConsole(Severity severity, LocalDateTime dateTime, String message) {
+    private void logConsole(String message) {
         try {
-            consoleProvider.write(getMessage(severity, dateTime, message));
+            consoleProvider.write(message);
         } catch (LoggerOperationException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private static class Buffers {
+        private StringBuilder message = new StringBuilder(INITIAL_BUFFER_SIZE);
+        private StringBuilder line = new StringBuilder(INITIAL_BUFFER_SIZE);
+
+        // A single huge message should not pin its buffers to the thread
+        private void release() {
+            if (message.capacity() > MAX_RETAINED_BUFFER) {
+                message = new StringBuilder(INITIAL_BUFFER_SIZE);
+            }
+            if (line.capacity() > MAX_RETAINED_BUFFER) {
+                line = new StringBuilder(INITIAL_BUFFER_SIZE);
+            }
+        }
+    }
+
 
     public static class BookmarksLoggerBuilder {
 
@@ -106,6 +310,9 @@ public class DefaultLogger implements Logger {
         private DateTimeProvider dateTimeProvider;
         private ConsoleProvider consoleProvider;
         private FileProvider fileProvider;
+        private LogFormat fileFormat = LogFormat.TEXT;
+        private int infoPerSecond;
+        private Duration deduplicationWindow = Duration.ZERO;
 
         private BookmarksLoggerBuilder() {
         }
@@ -145,6 +352,22 @@ public class DefaultLogger implements Logger {
             return this;
         }
 
+        public BookmarksLoggerBuilder configureFileFormat(LogFormat format) {
+            fileFormat = format;
+            return this;
+        }
+
+        // At most this many INFO lines per second, 0 keeps all of them
+        public BookmarksLoggerBuilder configureInfoSampling(int perSecond) {
+            infoPerSecond = perSecond;
+            return this;
+        }
+
+        public BookmarksLoggerBuilder configureExceptionDeduplication(Duration window) {
+            deduplicationWindow = window;
+            return this;
+        }
+
         public DefaultLogger build() {
             return new DefaultLogger(this);
         }
@@ -0,0 +1,46 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.logging;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Remembers which exceptions had their stack trace written recently. An exception with the same type,
+// message and throwing frame within the window is a repeat and only refers to the first trace id
+class ExceptionDeduplicator {
+
+    private static final int MAX_FINGERPRINTS = 1024;
+
+    private final long windowNanos;
+    private final Map<String, Seen> seen = new ConcurrentHashMap<>();
+
+    ExceptionDeduplicator(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    // The trace id the stack trace was written under, or null when this one should be written
+    String firstTraceId(Exception e, String traceId) {
+        if (windowNanos <= 0) {
+            return null;
+        }
+
+        if (seen.size() >= MAX_FINGERPRINTS) {
+            seen.clear();
+        }
+
+        long now = System.nanoTime();
+        var fresh = new Seen(traceId, now);
+        var first = seen.merge(fingerprint(e), fresh,
+            (existing, candidate) -> now - existing.since < windowNanos ? existing : candidate);
+
+        return first == fresh ? null : first.traceId;
+    }
+
+    static String fingerprint(Exception e) {
+        var trace = e.getStackTrace();
+        String frame = trace.length == 0 ? "" : trace[0].toString();
+        return e.getClass().getName() + ": " + e.getMessage() + " at " + frame;
+    }
+
+    private record Seen(String traceId, long since) {
+    }
+}
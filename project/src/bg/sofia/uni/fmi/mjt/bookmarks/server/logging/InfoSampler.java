@@ -0,0 +1,44 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lets through at most a fixed number of INFO lines per second and counts the rest.
+// Two threads crossing into a new second may both reset the count, a few extra lines are fine
+class InfoSampler {
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int perSecond;
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicInteger admitted = new AtomicInteger();
+    private final AtomicLong skipped = new AtomicLong();
+
+    InfoSampler(int perSecond) {
+        this.perSecond = perSecond;
+    }
+
+    boolean admit(Severity severity) {
+        if (severity != Severity.INFO || perSecond <= 0) {
+            return true;
+        }
+
+        long now = System.nanoTime() / WINDOW_NANOS;
+        long current = window.get();
+        if (now != current && window.compareAndSet(current, now)) {
+            admitted.set(0);
+        }
+
+        if (admitted.incrementAndGet() <= perSecond) {
+            return true;
+        }
+
+        skipped.incrementAndGet();
+        return false;
+    }
+
+    long takeSkipped() {
+        return skipped.get() == 0 ? 0 : skipped.getAndSet(0);
+    }
+}
@@ -0,0 +1,12 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.logging;
+
+import java.time.Duration;
+
+// A log line with fields of its own, any of them may be null
+public record LogEvent(Severity severity, String message, String traceId, String command, String user,
+                       Duration latency) {
+
+    public LogEvent(Severity severity, String message, String traceId) {
+        this(severity, message, traceId, null, null, null);
+    }
+}
@@ -0,0 +1,8 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.logging;
+
+public enum LogFormat {
+    // [SEVERITY] [time] message key=value ...
+    TEXT,
+    // One JSON object per line
+    JSON
+}
@@ -2,6 +2,8 @@ package bg.sofia.uni.fmi.mjt.bookmarks.server.logging;
 
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Service;
 
+import java.util.function.Supplier;
+
 public interface Logger extends Service {
     void logInfo(String message);
 
@@ -12,4 +14,20 @@ public interface Logger extends Service {
     void logException(Exception e, String id);
 
     void log(Severity severity, String message);
+
+    boolean isEnabled(Severity severity);
+
+    // The message is only built when some sink accepts the severity
+    void log(Severity severity, Supplier<String> message);
+
+    // Every {} in the format is replaced by the next argument, once some sink accepts the severity.
+    // The fixed arity overloads spare the varargs array on the common calls
+    void log(Severity severity, String format, Object arg);
+
+    void log(Severity severity, String format, Object first, Object second);
+
+    void log(Severity severity, String format, Object... args);
+
+    // Fields of the event become keys of their own in structured files
+    void log(LogEvent event);
 }
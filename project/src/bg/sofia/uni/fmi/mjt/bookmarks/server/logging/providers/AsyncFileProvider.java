@@ -0,0 +1,264 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.logging.providers;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.datetime.DateTimeProvider;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.datetime.DefaultDateTimeProvider;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Same files as DefaultFileProvider, but callers only put the line in a ring buffer. A background thread
+// drains it in batches into one open channel per file and switches to a new file when the day changes
+public class AsyncFileProvider implements FileProvider, AutoCloseable {
+
+    private static final String DEFAULT_LOG_FILE_PATH = "./logs/common/";
+    private static final String DEFAULT_ERROR_FILE_PATH = "./logs/errors/";
+    private static final String FILE_EXTENSION = ".txt";
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Sink logSink;
+    private final Sink errorSink;
+    private final OverflowPolicy overflowPolicy;
+    private final DateTimeProvider dateTimeProvider;
+    private final RingBuffer<Entry> buffer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private AsyncFileProvider(AsyncFileProviderBuilder builder) {
+        this.logSink = new Sink(Nullable.orDefault(builder.logFilePath, DEFAULT_LOG_FILE_PATH));
+        this.errorSink = new Sink(Nullable.orDefault(builder.errorFilePath, DEFAULT_ERROR_FILE_PATH));
+        this.overflowPolicy = builder.overflowPolicy;
+        this.dateTimeProvider = Nullable.orDefault(builder.dateTimeProvider, new DefaultDateTimeProvider());
+        this.buffer = new RingBuffer<>(builder.capacity);
+
+        this.writer = new Thread(this::drainLoop, "log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public static AsyncFileProviderBuilder configure() {
+        return new AsyncFileProviderBuilder();
+    }
+
+    @Override
+    public void write(String str) {
+        enqueue(new Entry(logSink, dateTimeProvider.getCurrentTime().toLocalDate(), str));
+    }
+
+    @Override
+    public void writeError(Exception e, String traceId) {
+        var time = dateTimeProvider.getCurrentTime();
+
+        StringWriter writer = new StringWriter();
+        writer.write("[" + time + "] [" + traceId + "] ");
+        e.printStackTrace(new PrintWriter(writer));
+        writer.write(System.lineSeparator());
+
+        enqueue(new Entry(errorSink, time.toLocalDate(), writer.toString()));
+    }
+
+    public long droppedMessages() {
+        return dropped.get();
+    }
+
+    // Writes everything queued so far and closes the files
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(Entry entry) {
+        while (!buffer.offer(entry)) {
+            if (overflowPolicy == OverflowPolicy.DROP || !running) {
+                dropped.incrementAndGet();
+                return;
+            }
+            LockSupport.parkNanos(BLOCKED_PARK_NANOS);
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            if (!drain()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+
+        drain();
+        logSink.close();
+        errorSink.close();
+    }
+
+    // One write per file per batch instead of one per line
+    private boolean drain() {
+        boolean drained = false;
+        Entry entry;
+        while ((entry = buffer.poll()) != null) {
+            entry.sink.append(entry.date, entry.text);
+            drained = true;
+        }
+
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            var date = dateTimeProvider.getCurrentTime().toLocalDate();
+            logSink.append(date, "[WARN] " + lost + " log messages dropped, the buffer was full" +
+                System.lineSeparator());
+        }
+
+        logSink.flush();
+        errorSink.flush();
+        return drained;
+    }
+
+    public enum OverflowPolicy {
+        // The caller waits for the writer to free a slot
+        BLOCK,
+        // The message is counted and discarded, the count is logged once there is room again
+        DROP
+    }
+
+    private record Entry(Sink sink, LocalDate date, String text) {
+    }
+
+    // Only touched by the writer thread
+    private static class Sink {
+        private final String root;
+        private final ByteBuffer pending = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private FileChannel channel;
+        private LocalDate date;
+
+        private Sink(String root) {
+            this.root = root;
+        }
+
+        private void append(LocalDate entryDate, String text) {
+            if (!entryDate.equals(date)) {
+                flush();
+                rollOver(entryDate);
+            }
+
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > pending.remaining()) {
+                flush();
+            }
+
+            if (bytes.length > pending.capacity()) {
+                write(ByteBuffer.wrap(bytes));
+            } else {
+                pending.put(bytes);
+            }
+        }
+
+        private void flush() {
+            if (pending.position() == 0) {
+                return;
+            }
+
+            pending.flip();
+            write(pending);
+            pending.clear();
+        }
+
+        private void write(ByteBuffer bytes) {
+            if (channel == null) {
+                return;
+            }
+
+            try {
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            } catch (IOException e) {
+                // Nowhere left to log it
+                e.printStackTrace();
+            }
+        }
+
+        private void rollOver(LocalDate newDate) {
+            close();
+            date = newDate;
+
+            try {
+                Path path = Path.of(root, newDate + FILE_EXTENSION);
+                Files.createDirectories(path.toAbsolutePath().getParent());
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        private void close() {
+            flush();
+            if (channel == null) {
+                return;
+            }
+
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            channel = null;
+        }
+    }
+
+    public static class AsyncFileProviderBuilder {
+
+        private String logFilePath;
+        private String errorFilePath;
+        private int capacity = DEFAULT_CAPACITY;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+        private DateTimeProvider dateTimeProvider;
+
+        private AsyncFileProviderBuilder() {
+        }
+
+        public AsyncFileProviderBuilder configurePaths(String logFilePath, String errorFilePath) {
+            this.logFilePath = logFilePath;
+            this.errorFilePath = errorFilePath;
+            return this;
+        }
+
+        public AsyncFileProviderBuilder configureCapacity(int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        public AsyncFileProviderBuilder configureOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        public AsyncFileProviderBuilder configureDateTimeProvider(DateTimeProvider dateTimeProvider) {
+            this.dateTimeProvider = dateTimeProvider;
+            return this;
+        }
+
+        public AsyncFileProvider build() {
+            return new AsyncFileProvider(this);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.logging.providers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bounded lock-free queue for many producers and a single consumer. Every slot carries a sequence:
+// a producer claims a position with one CAS and publishes the slot by advancing its sequence, the
+// consumer frees it by moving the sequence one lap ahead
+class RingBuffer<T> {
+
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    RingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    // False when the buffer is full
+    boolean offer(T item) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = item;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    // Single consumer only, null when nothing has been published yet
+    @SuppressWarnings("unchecked")
+    T poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+
+        T item = (T) slots[index];
+        slots[index] = null;
+        sequences.set(index, head + slots.length);
+        head++;
+        return item;
+    }
+
+    boolean isEmpty() {
+        return sequences.get((int) (head & mask)) != head + 1;
+    }
+}
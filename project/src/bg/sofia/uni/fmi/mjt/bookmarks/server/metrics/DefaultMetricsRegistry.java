@@ -0,0 +1,66 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+public class DefaultMetricsRegistry implements MetricsRegistry {
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    @Override
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    @Override
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    @Override
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    // Sorted by name so reports taken at different times line up, histograms with nothing recorded are left out
+    @Override
+    public String report() {
+        StringBuilder report = new StringBuilder();
+
+        report.append("Counters:").append(System.lineSeparator());
+        new TreeMap<>(counters).forEach((name, counter) -> line(report, name).append(counter.sum())
+            .append(System.lineSeparator()));
+
+        report.append("Gauges:").append(System.lineSeparator());
+        new TreeMap<>(gauges).forEach((name, gauge) -> line(report, name).append(gauge.getAsLong())
+            .append(System.lineSeparator()));
+
+        report.append("Latencies (us):").append(System.lineSeparator());
+        new TreeMap<>(histograms).forEach((name, histogram) -> {
+            var snapshot = histogram.snapshot();
+            if (snapshot.count() == 0) {
+                return;
+            }
+
+            line(report, name)
+                .append("count=").append(snapshot.count())
+                .append(" mean=").append(snapshot.mean())
+                .append(" p50=").append(snapshot.p50())
+                .append(" p90=").append(snapshot.p90())
+                .append(" p99=").append(snapshot.p99())
+                .append(" max=").append(snapshot.max())
+                .append(System.lineSeparator());
+        });
+
+        return report.toString();
+    }
+
+    private static StringBuilder line(StringBuilder report, String name) {
+        return report.append("  ").append(name).append(' ');
+    }
+}
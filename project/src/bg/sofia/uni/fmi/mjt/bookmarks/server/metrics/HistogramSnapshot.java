@@ -0,0 +1,7 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.metrics;
+
+// All times are in microseconds
+public record HistogramSnapshot(long count, long mean, long p50, long p90, long p99, long max) {
+
+    public static final HistogramSnapshot EMPTY = new HistogramSnapshot(0, 0, 0, 0, 0, 0);
+}
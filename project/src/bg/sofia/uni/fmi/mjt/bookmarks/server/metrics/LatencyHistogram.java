@@ -0,0 +1,98 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Log-linear buckets in the spirit of HdrHistogram: every power of two is split into 16 equal buckets,
+// so any recorded value is known to within about 6% with a fixed, small array and lock-free recording
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    private static final double P50 = 0.5;
+    private static final double P90 = 0.9;
+    private static final double P99 = 0.99;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // another thread raised it in between, compare again
+        }
+    }
+
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    // Buckets are read one by one while recording goes on, the figures may be off by the last few values
+    public HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+
+        if (total == 0) {
+            return HistogramSnapshot.EMPTY;
+        }
+
+        // A bucket's upper bound can lie above anything actually recorded
+        long highest = max.get();
+        return new HistogramSnapshot(total, micros(sum.sum() / Math.max(1, count.sum())),
+            micros(Math.min(highest, percentile(copy, total, P50))),
+            micros(Math.min(highest, percentile(copy, total, P90))),
+            micros(Math.min(highest, percentile(copy, total, P99))), micros(highest));
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    // The highest value that falls into the bucket
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    private static long percentile(long[] counts, long total, double percentile) {
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+
+        return upperBound(counts.length - 1);
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,19 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.metrics;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Service;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+public interface MetricsRegistry extends Service {
+
+    // The same name always returns the same counter, callers may keep it
+    LongAdder counter(String name);
+
+    LatencyHistogram histogram(String name);
+
+    // Read only when a report is made
+    void gauge(String name, LongSupplier value);
+
+    String report();
+}
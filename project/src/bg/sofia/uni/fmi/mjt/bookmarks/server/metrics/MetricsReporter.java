@@ -0,0 +1,85 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.metrics;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.DIContainer;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.Logger;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.IdGenerator;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.datetime.DateTimeProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Appends a report of the registry to a file per day at a fixed rate, and a last one on stop
+public class MetricsReporter {
+
+    private static final String FILE_EXTENSION = ".txt";
+    private static final int STOP_TIMEOUT_SECONDS = 10;
+
+    private final MetricsRegistry metrics;
+    private final String directory;
+    private final int interval;
+    private final DateTimeProvider dateTimeProvider;
+    private ScheduledExecutorService scheduler;
+
+    public MetricsReporter(MetricsRegistry metrics, String directory, int interval, DateTimeProvider dateTimeProvider) {
+        this.metrics = metrics;
+        this.directory = directory;
+        this.interval = interval;
+        this.dateTimeProvider = dateTimeProvider;
+    }
+
+    // A new thread per start, the server can be stopped and started again
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::dump, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+
+        scheduler.shutdown();
+
+        try {
+            if (!scheduler.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        scheduler = null;
+        dump();
+    }
+
+    void dump() {
+        var time = dateTimeProvider.getCurrentTime();
+
+        try {
+            Path path = Path.of(directory, time.toLocalDate() + FILE_EXTENSION);
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Files.writeString(path, "[" + time + "]" + System.lineSeparator() + metrics.report(),
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (Exception e) {
+            // An exception would cancel the schedule, the next run retries instead
+            String traceId = IdGenerator.generateId();
+            Logger logger = DIContainer.request(Logger.class);
+            logger.logError("Metrics dump failed: " + e.getMessage() + ". Trace id: " + traceId);
+            logger.logException(e, traceId);
+        }
+    }
+}
@@ -1,13 +1,14 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.server.models;
 
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.Entity;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.LinkedEntity;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 
-public class Bookmark extends Entity<String> {
+public class Bookmark extends Entity<String> implements LinkedEntity {
     private final String url;
     private final String shortened;
     private final String title;
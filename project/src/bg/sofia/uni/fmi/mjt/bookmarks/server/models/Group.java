@@ -1,14 +1,16 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.server.models;
 
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.Entity;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.LinkedEntity;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
 
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
-public class Group extends Entity<String> {
+public class Group extends Entity<String> implements LinkedEntity {
     private final String name;
     private final User user;
     private final List<Bookmark> bookmarks;
@@ -17,7 +19,7 @@ public class Group extends Entity<String> {
         super(key);
         this.name = name;
         this.user = user;
-        this.bookmarks = new ArrayList<>();
+        this.bookmarks = Collections.synchronizedList(new ArrayList<>());
 
         Nullable.throwIfAnyNull(name, user);
     }
@@ -31,8 +33,11 @@ public class Group extends Entity<String> {
         return user;
     }
 
+    // Snapshot
     public List<Bookmark> getBookmarks() {
-        return bookmarks;
+        synchronized (bookmarks) {
+            return List.copyOf(bookmarks);
+        }
     }
 
     public List<Bookmark> bookmarksSynchronizer() {
@@ -0,0 +1,24 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.models;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.Entity;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
+
+// Keyed by the code, it is what the redirect endpoint looks up
+public class ShortCode extends Entity<String> {
+    private final String url;
+
+    public ShortCode(String code, String url) {
+        super(code);
+        this.url = url;
+
+        Nullable.throwIfNull(url);
+    }
+
+    public String getCode() {
+        return getKey();
+    }
+
+    public String getUrl() {
+        return url;
+    }
+}
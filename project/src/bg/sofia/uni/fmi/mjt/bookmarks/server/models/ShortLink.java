@@ -0,0 +1,24 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.models;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.Entity;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
+
+// Keyed by the long url, so shortening the same url again is a lookup
+public class ShortLink extends Entity<String> {
+    private final String shortened;
+
+    public ShortLink(String url, String shortened) {
+        super(url);
+        this.shortened = shortened;
+
+        Nullable.throwIfNull(shortened);
+    }
+
+    public String getUrl() {
+        return getKey();
+    }
+
+    public String getShortened() {
+        return shortened;
+    }
+}
@@ -1,14 +1,16 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.server.models;
 
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.Entity;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.LinkedEntity;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-public class User extends Entity<String> {
+public class User extends Entity<String> implements LinkedEntity {
     private final String username;
     private final String password;
 
@@ -19,8 +21,8 @@ public class User extends Entity<String> {
         super(key);
         this.username = username;
         this.password = password;
-        this.bookmarks = new ArrayList<>();
-        this.groups = new ArrayList<>();
+        this.bookmarks = Collections.synchronizedList(new ArrayList<>());
+        this.groups = new CopyOnWriteArrayList<>();
 
         Nullable.throwIfAnyNull(username, password);
     }
@@ -33,9 +35,11 @@ public class User extends Entity<String> {
         return username;
     }
 
-    // Unmodifiable view
+    // Snapshot, a user can have a lot of bookmarks so they are not kept in a copy-on-write list
     public List<Bookmark> getBookmarks() {
-        return Collections.unmodifiableList(bookmarks);
+        synchronized (bookmarks) {
+            return List.copyOf(bookmarks);
+        }
     }
 
     // Unmodifiable view
@@ -0,0 +1,45 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.network;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BufferPool {
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final Queue<ByteBuffer> buffers;
+    private final AtomicInteger pooled;
+
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+        this.buffers = new ConcurrentLinkedQueue<>();
+        this.pooled = new AtomicInteger(0);
+    }
+
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        pooled.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (!buffer.isDirect() || buffer.capacity() != bufferSize) {
+            return;
+        }
+
+        if (pooled.incrementAndGet() > maxPooled) {
+            pooled.decrementAndGet();
+            return;
+        }
+
+        buffers.add(buffer);
+    }
+}
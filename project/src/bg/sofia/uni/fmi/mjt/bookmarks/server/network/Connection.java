@@ -0,0 +1,92 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Connection {
+
+    private static final int MAX_GATHERED_BUFFERS = 64;
+
+    private final SocketChannel channel;
+    private final Reactor reactor;
+    private final BufferPool pool;
+    private final LineFrameDecoder decoder;
+    private final Queue<ByteBuffer> writeQueue;
+    private final String remoteAddress;
+
+    private SelectionKey key;
+    private Object attachment;
+
+    public Connection(SocketChannel channel, Reactor reactor, BufferPool pool, int bufferSize, int maxFrameSize)
+        throws IOException {
+        this.channel = channel;
+        this.reactor = reactor;
+        this.pool = pool;
+        this.decoder = new LineFrameDecoder(bufferSize, maxFrameSize);
+        this.writeQueue = new ConcurrentLinkedQueue<>();
+        this.remoteAddress = String.valueOf(channel.getRemoteAddress());
+    }
+
+    public SocketChannel channel() {
+        return channel;
+    }
+
+    public String remoteAddress() {
+        return remoteAddress;
+    }
+
+    public synchronized void send(ByteBuffer[] buffers) {
+        writeQueue.addAll(Arrays.asList(buffers));
+        reactor.requestWrite(this);
+    }
+
+    public Object attachment() {
+        return attachment;
+    }
+
+    public void attach(Object attachment) {
+        this.attachment = attachment;
+    }
+
+    LineFrameDecoder decoder() {
+        return decoder;
+    }
+
+    SelectionKey key() {
+        return key;
+    }
+
+    void register(SelectionKey key) {
+        this.key = key;
+    }
+
+    boolean flush(LongAdder written) throws IOException {
+        ByteBuffer[] gathered = new ByteBuffer[MAX_GATHERED_BUFFERS];
+        while (!writeQueue.isEmpty()) {
+            int count = 0;
+            for (ByteBuffer buffer : writeQueue) {
+                if (count == gathered.length) {
+                    break;
+                }
+                gathered[count++] = buffer;
+            }
+
+            written.add(channel.write(gathered, 0, count));
+
+            for (int i = 0; i < count; i++) {
+                if (gathered[i].hasRemaining()) {
+                    return false;
+                }
+                pool.release(writeQueue.poll());
+            }
+        }
+
+        return true;
+    }
+}
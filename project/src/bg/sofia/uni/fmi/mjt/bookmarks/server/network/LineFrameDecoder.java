@@ -0,0 +1,70 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+public class LineFrameDecoder {
+
+    private static final byte LINE_FEED = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+
+    private final int maxFrameSize;
+    private ByteBuffer buffer;
+    private int scanned;
+
+    public LineFrameDecoder(int initialSize, int maxFrameSize) {
+        this.maxFrameSize = Math.max(initialSize, maxFrameSize);
+        this.buffer = ByteBuffer.allocate(initialSize);
+        this.scanned = 0;
+    }
+
+    public int read(ReadableByteChannel channel) throws IOException {
+        ensureCapacity();
+        return channel.read(buffer);
+    }
+
+    public void decode(Consumer<String> consumer) {
+        buffer.flip();
+
+        byte[] array = buffer.array();
+        int start = 0;
+        for (int i = scanned; i < buffer.limit(); i++) {
+            if (array[i] != LINE_FEED) {
+                continue;
+            }
+
+            int end = i;
+            if (end > start && array[end - 1] == CARRIAGE_RETURN) {
+                end--;
+            }
+
+            String frame = new String(array, start, end - start, StandardCharsets.UTF_8).trim();
+            if (!frame.isEmpty()) {
+                consumer.accept(frame);
+            }
+            start = i + 1;
+        }
+
+        buffer.position(start);
+        buffer.compact();
+        scanned = buffer.position();
+    }
+
+    private void ensureCapacity() throws IOException {
+        if (buffer.hasRemaining()) {
+            return;
+        }
+
+        if (buffer.capacity() >= maxFrameSize) {
+            throw new IOException("Message exceeds the maximum frame size of " + maxFrameSize + " bytes.");
+        }
+
+        ByteBuffer expanded = ByteBuffer.allocate(Math.min(buffer.capacity() * 2, maxFrameSize));
+        buffer.flip();
+        expanded.put(buffer);
+        buffer = expanded;
+    }
+}
@@ -0,0 +1,5 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.network;
+
+public interface MessageHandler {
+    void handle(Connection connection, String frame);
+}
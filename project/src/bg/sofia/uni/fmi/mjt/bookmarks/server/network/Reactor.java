@@ -0,0 +1,187 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.network;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.Logger;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.Severity;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.metrics.LatencyHistogram;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.metrics.MetricsRegistry;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.IdGenerator;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Reactor implements Runnable {
+
+    private final Selector selector;
+    private final MessageHandler handler;
+    private final Logger logger;
+    private final BufferPool pool;
+    private final int bufferSize;
+    private final int maxFrameSize;
+
+    private final LatencyHistogram loopTimes;
+    private final LongAdder bytesIn;
+    private final LongAdder bytesOut;
+    private final LongAdder activeConnections;
+
+    private final Queue<SocketChannel> pendingRegistrations;
+    private final Queue<Connection> pendingWrites;
+
+    private volatile boolean isRunning = true;
+
+    public Reactor(MessageHandler handler, Logger logger, BufferPool pool, int bufferSize, int maxFrameSize,
+                   MetricsRegistry metrics) throws IOException {
+        this.selector = Selector.open();
+        this.handler = handler;
+        this.logger = logger;
+        this.pool = pool;
+        this.bufferSize = bufferSize;
+        this.maxFrameSize = maxFrameSize;
+        this.pendingRegistrations = new ConcurrentLinkedQueue<>();
+        this.pendingWrites = new ConcurrentLinkedQueue<>();
+
+        this.loopTimes = metrics.histogram("reactor.loop");
+        this.bytesIn = metrics.counter("network.bytes.in");
+        this.bytesOut = metrics.counter("network.bytes.out");
+        this.activeConnections = metrics.counter("network.connections.active");
+    }
+
+    public void register(SocketChannel channel) {
+        pendingRegistrations.add(channel);
+        selector.wakeup();
+    }
+
+    public void stop() {
+        isRunning = false;
+        selector.wakeup();
+    }
+
+    void requestWrite(Connection connection) {
+        pendingWrites.add(connection);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (isRunning) {
+                selector.select();
+
+                // Only the work after waking up, the time spent waiting in select is idle time
+                long start = System.nanoTime();
+                registerPendingChannels();
+                enablePendingWrites();
+
+                Iterator<SelectionKey> keyIterator = selector.selectedKeys().iterator();
+                while (keyIterator.hasNext()) {
+                    SelectionKey key = keyIterator.next();
+                    keyIterator.remove();
+                    handleKey(key);
+                }
+                loopTimes.recordSince(start);
+            }
+        } catch (IOException e) {
+            logError(e);
+        }
+
+        for (SelectionKey selectionKey : selector.keys()) {
+            try {
+                disconnect(selectionKey);
+            } catch (Exception e) {
+                //ignored
+            }
+        }
+
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logError(e);
+        }
+    }
+
+    private void handleKey(SelectionKey key) {
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+
+            Connection connection = (Connection) key.attachment();
+            if (key.isReadable()) {
+                handleKeyIsReadable(key, connection);
+            }
+
+            if (key.isValid() && key.isWritable() && connection.flush(bytesOut)) {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        } catch (IOException e) {
+            try {
+                disconnect(key);
+            } catch (IOException ex) {
+                //ignored
+            }
+            logError(e);
+        }
+    }
+
+    private void handleKeyIsReadable(SelectionKey key, Connection connection) throws IOException {
+        LineFrameDecoder decoder = connection.decoder();
+
+        int r = decoder.read(connection.channel());
+        if (r < 0) {
+            logger.log(Severity.INFO, "Nothing to read, closing channel for client {}", connection.remoteAddress());
+            disconnect(key);
+            return;
+        }
+
+        bytesIn.add(r);
+        decoder.decode(frame -> handler.handle(connection, frame));
+    }
+
+    private void registerPendingChannels() {
+        SocketChannel channel;
+        while ((channel = pendingRegistrations.poll()) != null) {
+            try {
+                Connection connection = new Connection(channel, this, pool, bufferSize, maxFrameSize);
+                connection.register(channel.register(selector, SelectionKey.OP_READ, connection));
+                activeConnections.increment();
+            } catch (IOException e) {
+                try {
+                    channel.close();
+                } catch (IOException ex) {
+                    //ignored
+                }
+                logError(e);
+            }
+        }
+    }
+
+    private void enablePendingWrites() {
+        Connection connection;
+        while ((connection = pendingWrites.poll()) != null) {
+            SelectionKey key = connection.key();
+            if (key != null && key.isValid()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+    }
+
+    private void disconnect(SelectionKey key) throws IOException {
+        // A key can be disconnected more than once, only the first time counts
+        if (key.channel().isOpen()) {
+            activeConnections.decrement();
+        }
+        key.channel().close();
+        key.cancel();
+    }
+
+    private void logError(IOException e) {
+        String traceId = IdGenerator.generateId();
+        logger.logError("There is a problem with the server socket: " + e.getMessage() + ". Trace id: " + traceId);
+        logger.logException(e, traceId);
+    }
+}
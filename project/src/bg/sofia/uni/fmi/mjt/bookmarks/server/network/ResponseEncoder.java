@@ -0,0 +1,45 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.network;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ResponseEncoder {
+
+    private static final ThreadLocal<CharsetEncoder> ENCODERS = ThreadLocal.withInitial(
+        () -> StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE));
+
+    private final BufferPool pool;
+
+    public ResponseEncoder(BufferPool pool) {
+        this.pool = pool;
+    }
+
+    public ByteBuffer[] encode(String message) {
+        CharsetEncoder encoder = ENCODERS.get();
+        encoder.reset();
+
+        CharBuffer input = CharBuffer.wrap(message);
+        List<ByteBuffer> buffers = new ArrayList<>();
+        ByteBuffer output = pool.acquire();
+
+        while (encoder.encode(input, output, true).isOverflow()) {
+            buffers.add(output.flip());
+            output = pool.acquire();
+        }
+
+        while (encoder.flush(output).isOverflow()) {
+            buffers.add(output.flip());
+            output = pool.acquire();
+        }
+
+        buffers.add(output.flip());
+        return buffers.toArray(ByteBuffer[]::new);
+    }
+}
@@ -1,29 +1,86 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence;
 
-public class AutoSaveContextDaemon extends Thread {
+import bg.sofia.uni.fmi.mjt.bookmarks.server.DIContainer;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.Logger;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.metrics.MetricsRegistry;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.IdGenerator;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class AutoSaveContextDaemon {
+
+    private static final int STOP_TIMEOUT_SECONDS = 30;
 
     private final DatabaseContext context;
     private final int interval;
-    private boolean isRunning;
+    private ScheduledExecutorService scheduler;
 
     public AutoSaveContextDaemon(DatabaseContext context, int interval) {
         this.context = context;
         this.interval = interval;
     }
 
-    public void stopDaemon() {
-        isRunning = false;
+    // Fixed delay: the next save is scheduled only after the previous one has finished,
+    // so a slow disk stretches the cadence instead of piling up saves.
+    // A new thread per start, the server can be stopped and started again
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::save, interval, interval, TimeUnit.MILLISECONDS);
     }
 
-    @Override
-    public void start() {
+    public synchronized void stopDaemon() {
+        if (scheduler == null) {
+            return;
+        }
+
+        scheduler.shutdown();
+
         try {
-            while (isRunning) {
-                context.persist();
-                wait(interval);
+            if (!scheduler.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
             }
         } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        scheduler = null;
+    }
+
+    private void save() {
+        try {
+            long start = System.nanoTime();
+            var statistics = context.persist();
+
+            // Runs with nothing to save would only pull the figures down
+            if (statistics.entities() > 0) {
+                var metrics = DIContainer.request(MetricsRegistry.class);
+                metrics.histogram("persistence.save").recordSince(start);
+                metrics.counter("persistence.entities").add(statistics.entities());
+                metrics.counter("persistence.bytes").add(statistics.bytes());
+
+                log().logInfo("Autosave: " + statistics.entities() + " entities, " + statistics.bytes() +
+                    " bytes in " + statistics.elapsed().toMillis() + " ms");
+            }
+        } catch (Exception e) {
+            // An exception would cancel the schedule, the next run retries instead
+            String traceId = IdGenerator.generateId();
+            log().logError("Autosave failed: " + e.getMessage() + ". Trace id: " + traceId);
+            log().logException(e, traceId);
         }
     }
+
+    private Logger log() {
+        return DIContainer.request(Logger.class);
+    }
 }
@@ -4,6 +4,7 @@ import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Group;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.Repository;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.search.SearchIndex;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Service;
 
 public interface DatabaseContext extends Service {
@@ -14,7 +15,9 @@ public interface DatabaseContext extends Service {
 
     Repository<String, Group> groups();
 
-    void persist();
+    SearchIndex searchIndex();
+
+    PersistStatistics persist();
 
     void shutdown();
 
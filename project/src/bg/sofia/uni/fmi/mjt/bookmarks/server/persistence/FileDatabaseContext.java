@@ -3,10 +3,11 @@ package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Group;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
-import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.FileRepository;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.ObservableRepository;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.Repository;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.observe.BookmarksObserver;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.observe.GroupsObserver;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.search.SearchIndex;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
 
 public class FileDatabaseContext implements DatabaseContext {
@@ -15,32 +16,49 @@ public class FileDatabaseContext implements DatabaseContext {
     private final Repository<String, User> usersRepository;
     private final Repository<String, Bookmark> bookmarksRepository;
     private final Repository<String, Group> groupsRepository;
+    private final SearchIndex searchIndex;
     private final AutoSaveContextDaemon saveContextDaemon;
+    private final Object persistLock = new Object();
 
-    public FileDatabaseContext(FileRepository<String, User> usersRepository,
-                               FileRepository<String, Bookmark> bookmarksRepository,
-                               FileRepository<String, Group> groupsRepository) {
+    public FileDatabaseContext(Repository<String, User> usersRepository,
+                               ObservableRepository<String, Bookmark> bookmarksRepository,
+                               ObservableRepository<String, Group> groupsRepository) {
         this(usersRepository, bookmarksRepository, groupsRepository, AUTOSAVE_INTERVAL);
     }
 
-    public FileDatabaseContext(FileRepository<String, User> usersRepository,
-                               FileRepository<String, Bookmark> bookmarksRepository,
-                               FileRepository<String, Group> groupsRepository,
+    public FileDatabaseContext(Repository<String, User> usersRepository,
+                               ObservableRepository<String, Bookmark> bookmarksRepository,
+                               ObservableRepository<String, Group> groupsRepository,
                                int autoSaveInterval) {
+        this(usersRepository, bookmarksRepository, groupsRepository, autoSaveInterval, new SearchIndex());
+    }
+
+    public FileDatabaseContext(Repository<String, User> usersRepository,
+                               ObservableRepository<String, Bookmark> bookmarksRepository,
+                               ObservableRepository<String, Group> groupsRepository,
+                               SearchIndex searchIndex) {
+        this(usersRepository, bookmarksRepository, groupsRepository, AUTOSAVE_INTERVAL, searchIndex);
+    }
 
-        Nullable.throwIfAnyNull(usersRepository, bookmarksRepository, groupsRepository);
+    public FileDatabaseContext(Repository<String, User> usersRepository,
+                               ObservableRepository<String, Bookmark> bookmarksRepository,
+                               ObservableRepository<String, Group> groupsRepository,
+                               int autoSaveInterval,
+                               SearchIndex searchIndex) {
+
+        Nullable.throwIfAnyNull(usersRepository, bookmarksRepository, groupsRepository, searchIndex);
         this.usersRepository = usersRepository;
         this.bookmarksRepository = bookmarksRepository;
         this.groupsRepository = groupsRepository;
+        this.searchIndex = searchIndex;
+
+        this.usersRepository.addIndex(RepositoryIndexes.USER_BY_USERNAME, User::getUsername);
 
-        ((FileRepository<String, Bookmark>) this.bookmarksRepository).attach(
-            new BookmarksObserver(usersRepository, groupsRepository));
-        ((FileRepository<String, Group>) this.groupsRepository).attach(
-            new GroupsObserver(usersRepository));
+        bookmarksRepository.attach(new BookmarksObserver(usersRepository, groupsRepository, searchIndex));
+        groupsRepository.attach(new GroupsObserver(usersRepository));
 
         autoSaveInterval = autoSaveInterval > 0 ? autoSaveInterval : AUTOSAVE_INTERVAL;
         saveContextDaemon = new AutoSaveContextDaemon(this, autoSaveInterval);
-        saveContextDaemon.start();
     }
 
     @Override
@@ -59,29 +77,41 @@ public class FileDatabaseContext implements DatabaseContext {
     }
 
     @Override
-    public synchronized void persist() {
-        this.usersRepository.persist();
-        this.groupsRepository.persist();
-        this.bookmarksRepository.persist();
+    public SearchIndex searchIndex() {
+        return searchIndex;
     }
 
     @Override
-    public void shutdown() {
-        saveContextDaemon.stopDaemon();
-
-        try {
-            saveContextDaemon.join();
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+    public PersistStatistics persist() {
+        synchronized (persistLock) {
+            return persist(usersRepository)
+                .plus(persist(groupsRepository))
+                .plus(persist(bookmarksRepository))
+                .plus(searchIndex.persist());
         }
+    }
 
+    @Override
+    public void shutdown() {
+        saveContextDaemon.stopDaemon();
         persist();
     }
 
+    private static PersistStatistics persist(Repository<?, ?> repository) {
+        return repository.isDirty() ? repository.persist() : PersistStatistics.EMPTY;
+    }
+
     @Override
     public void load() {
         this.usersRepository.load();
         this.groupsRepository.load();
         this.bookmarksRepository.load();
+
+        // Deserialized bookmarks do not go through the observer
+        this.searchIndex.load();
+        this.searchIndex.rebuild(this.bookmarksRepository.getAll());
+
+        // Every server start loads the context, shutdown stops the daemon again
+        saveContextDaemon.start();
     }
 }
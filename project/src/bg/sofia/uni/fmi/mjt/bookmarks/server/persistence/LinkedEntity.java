@@ -0,0 +1,6 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence;
+
+// Compared by reference across the server, and deserializing one links it into the lists of the entities
+// it belongs to. A repository has to materialize each record of such a type once and keep it
+public interface LinkedEntity {
+}
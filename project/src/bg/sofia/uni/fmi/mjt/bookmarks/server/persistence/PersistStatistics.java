@@ -0,0 +1,12 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence;
+
+import java.time.Duration;
+
+public record PersistStatistics(long entities, long bytes, Duration elapsed) {
+
+    public static final PersistStatistics EMPTY = new PersistStatistics(0, 0, Duration.ZERO);
+
+    public PersistStatistics plus(PersistStatistics other) {
+        return new PersistStatistics(entities + other.entities, bytes + other.bytes, elapsed.plus(other.elapsed));
+    }
+}
@@ -0,0 +1,8 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence;
+
+public class RepositoryIndexes {
+    public static final String USER_BY_USERNAME = "username";
+
+    private RepositoryIndexes() {
+    }
+}
@@ -0,0 +1,41 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Group;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.FileRepositoryOptions;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.Repository;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class StorageConverter {
+
+    // The source context has to be loaded (and registered in the DI container) beforehand,
+    // the target files are written with the serializer configured in their options
+    public static void convert(DatabaseContext source, FileRepositoryOptions users, FileRepositoryOptions groups,
+                               FileRepositoryOptions bookmarks) {
+        convert(source.users(), users, User.class);
+        convert(source.groups(), groups, Group.class);
+        convert(source.bookmarks(), bookmarks, Bookmark.class);
+    }
+
+    public static <K, T extends Entity<K>> void convert(Repository<K, T> source, FileRepositoryOptions target,
+                                                         Class<T> valueType) {
+        try (var output = target.output()) {
+            var buffered = new BufferedOutputStream(output);
+            target.serializer().serializeEntries(buffered, source.getAll(), valueType);
+            buffered.flush();
+            output.commit();
+
+            // A journal left next to the target was written in the old format
+            if (target.journalPath() != null) {
+                Files.deleteIfExists(Path.of(target.journalPath()));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.journal;
+
+public enum JournalOperation {
+    ADD((byte) 1),
+    REMOVE((byte) 2);
+
+    private final byte code;
+
+    JournalOperation(byte code) {
+        this.code = code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    public static JournalOperation fromCode(byte code) {
+        for (JournalOperation operation : values()) {
+            if (operation.code == code) {
+                return operation;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown journal operation code: " + code);
+    }
+}
@@ -0,0 +1,4 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.journal;
+
+public record JournalRecord(JournalOperation operation, byte[] key, byte[] payload) {
+}
@@ -0,0 +1,241 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.journal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+public class WriteAheadLog {
+
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private final Path path;
+    private final Object appendLock;
+    private final Object syncLock;
+
+    private final ByteArrayOutputStream pending;
+    private long appendedSequence;
+    private long appendedBytes;
+    private volatile long syncedSequence;
+    private FileChannel channel;
+    // Position (in appendedBytes() terms) of the first byte in the file
+    private long fileStart;
+
+    public WriteAheadLog(Path path) {
+        this.path = path;
+        this.appendLock = new Object();
+        this.syncLock = new Object();
+        this.pending = new ByteArrayOutputStream();
+        this.appendedSequence = 0;
+        this.syncedSequence = 0;
+    }
+
+    public long append(JournalRecord record) {
+        byte[] body = encode(record);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(body.length).putLong(crc.getValue());
+
+        synchronized (appendLock) {
+            pending.writeBytes(header.array());
+            pending.writeBytes(body);
+            appendedBytes += HEADER_SIZE + body.length;
+            return ++appendedSequence;
+        }
+    }
+
+    // Group commit: the first caller to get here writes and forces every record appended so far,
+    // the ones that were waiting behind it find their records already durable and return
+    public void sync(long sequence) throws IOException {
+        if (syncedSequence >= sequence) {
+            return;
+        }
+
+        synchronized (syncLock) {
+            if (syncedSequence >= sequence) {
+                return;
+            }
+
+            flush();
+        }
+    }
+
+    public long appendedBytes() {
+        synchronized (appendLock) {
+            return appendedBytes;
+        }
+    }
+
+    public long size() throws IOException {
+        synchronized (syncLock) {
+            synchronized (appendLock) {
+                return channel().size() + pending.size();
+            }
+        }
+    }
+
+    // Drops every record appended before the given position. Records appended after it, including the
+    // ones written while a snapshot was being taken, are copied to a new file that replaces the old one
+    public void truncateBefore(long position) throws IOException {
+        synchronized (syncLock) {
+            flush();
+
+            FileChannel fileChannel = channel();
+            long offset = Math.max(0, position - fileStart);
+            long size = fileChannel.size();
+
+            Path temp = path.resolveSibling(path.getFileName() + TEMP_EXTENSION);
+            try (var target = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (long copied = 0; offset + copied < size; ) {
+                    copied += fileChannel.transferTo(offset + copied, size - offset - copied, target);
+                }
+                target.force(true);
+            }
+
+            fileChannel.close();
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            channel = open();
+            fileStart = fileStart + offset;
+        }
+    }
+
+    public long replay(Consumer<JournalRecord> consumer) throws IOException {
+        synchronized (syncLock) {
+            FileChannel fileChannel = channel();
+            fileChannel.position(0);
+
+            var input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(fileChannel)));
+            long valid = 0;
+            long replayed = 0;
+
+            while (true) {
+                JournalRecord record;
+                int length;
+                try {
+                    length = input.readInt();
+                    long checksum = input.readLong();
+                    if (length <= 0 || length > MAX_RECORD_SIZE) {
+                        break;
+                    }
+
+                    byte[] body = new byte[length];
+                    input.readFully(body);
+
+                    CRC32 crc = new CRC32();
+                    crc.update(body);
+                    if (crc.getValue() != checksum) {
+                        break;
+                    }
+
+                    record = decode(body);
+                } catch (EOFException e) {
+                    break;
+                }
+
+                consumer.accept(record);
+                valid += HEADER_SIZE + length;
+                replayed++;
+            }
+
+            // Drop a torn or corrupted tail left by a crash in the middle of a write
+            if (valid < fileChannel.size()) {
+                fileChannel.truncate(valid);
+                fileChannel.force(true);
+            }
+            fileChannel.position(valid);
+            fileStart = writtenBytes() - valid;
+
+            return replayed;
+        }
+    }
+
+    // Writes and forces every pending record, the caller holds syncLock
+    private void flush() throws IOException {
+        byte[] batch;
+        long batchSequence;
+        synchronized (appendLock) {
+            batch = pending.toByteArray();
+            batchSequence = appendedSequence;
+            pending.reset();
+        }
+
+        FileChannel fileChannel = channel();
+        ByteBuffer buffer = ByteBuffer.wrap(batch);
+        while (buffer.hasRemaining()) {
+            fileChannel.write(buffer);
+        }
+        fileChannel.force(false);
+
+        syncedSequence = batchSequence;
+    }
+
+    private long writtenBytes() {
+        synchronized (appendLock) {
+            return appendedBytes - pending.size();
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            channel = open();
+            fileStart = writtenBytes() - channel.size();
+        } else if (!channel.isOpen()) {
+            channel = open();
+        }
+
+        return channel;
+    }
+
+    private FileChannel open() throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        var fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        fileChannel.position(fileChannel.size());
+        return fileChannel;
+    }
+
+    private static byte[] encode(JournalRecord record) {
+        return ByteBuffer.allocate(1 + Integer.BYTES + record.key().length + record.payload().length)
+            .put(record.operation().getCode())
+            .putInt(record.key().length)
+            .put(record.key())
+            .put(record.payload())
+            .array();
+    }
+
+    private static JournalRecord decode(byte[] body) throws EOFException {
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+
+        JournalOperation operation = JournalOperation.fromCode(buffer.get());
+        int keyLength = buffer.getInt();
+        if (keyLength < 0 || keyLength > buffer.remaining()) {
+            throw new EOFException("Corrupted journal record.");
+        }
+
+        byte[] key = new byte[keyLength];
+        buffer.get(key);
+        byte[] payload = new byte[buffer.remaining()];
+        buffer.get(payload);
+
+        return new JournalRecord(operation, key, payload);
+    }
+}
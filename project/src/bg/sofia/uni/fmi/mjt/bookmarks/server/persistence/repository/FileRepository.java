@@ -1,27 +1,49 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository;
 
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.Entity;
-import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.observe.Observable;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.PersistStatistics;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.journal.JournalOperation;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.journal.JournalRecord;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.journal.WriteAheadLog;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.CountingOutputStream;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
-import com.google.gson.reflect.TypeToken;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
-public class FileRepository<K, T extends Entity<K>> extends Observable<T> implements Repository<K, T> {
+// Reads never lock. Writes to the same key are serialized by a striped lock so the table, the indexes
+// and the journal see them in the same order; writes to different keys run in parallel.
+public class FileRepository<K, T extends Entity<K>> extends ObservableRepository<K, T> {
 
+    private static final int PROGRESS_INTERVAL = 100_000;
+    private static final int LOCK_STRIPES = 64;
 
     private final FileRepositoryOptions options;
 
     private final Map<K, T> table;
+    private final WriteAheadLog journal;
+    private final SecondaryIndexes<T> indexes;
+    private final Object[] locks;
+    private final Object[] indexLocks;
+    private final Object persistLock;
+
+    // Key -> version of its last change, so persist() only clears what it has written
+    private final Map<K, Long> dirty;
+    private final AtomicLong versions;
+    private long journalBytesPersisted;
+    private volatile LoadStatistics loadStatistics;
 
     private final Type keyType;
     private final Type valueType;
@@ -33,33 +55,86 @@ public class FileRepository<K, T extends Entity<K>> extends Observable<T> implem
         Nullable.throwIfNull(options);
 
         this.options = options;
-        this.table = new HashMap<>();
+        this.table = new ConcurrentHashMap<>();
+        this.indexes = new SecondaryIndexes<>();
+        this.dirty = new ConcurrentHashMap<>();
+        this.versions = new AtomicLong();
+        this.persistLock = new Object();
+        this.locks = new Object[LOCK_STRIPES];
+        this.indexLocks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+            indexLocks[i] = new Object();
+        }
+        this.journal = options.journalPath() == null ? null : new WriteAheadLog(Path.of(options.journalPath()));
     }
 
     @Override
     public void load() {
+        synchronized (persistLock) {
+            loadEntries();
+        }
+    }
+
+    private void loadEntries() {
         table.clear();
-        try (var reader = new BufferedReader(options.reader())) {
-            var json = reader.lines().collect(Collectors.joining(System.lineSeparator()));
-            if (json.isEmpty() || json.isBlank()) {
-                return;
-            }
+        indexes.clear();
+        dirty.clear();
 
-            table.putAll(
-                options
-                    .serializer()
-                    .deserialize(json, TypeToken.getParameterized(Map.class, keyType, valueType).getType())
-            );
+        long start = System.nanoTime();
+        long[] entries = {0};
+        long journalRecords = 0;
+
+        try (var input = new BufferedInputStream(options.input())) {
+            options.serializer().<T>deserializeEntries(input, valueType, object -> {
+                put(object);
+                if (++entries[0] % PROGRESS_INTERVAL == 0) {
+                    reportProgress(entries[0], 0, start, false);
+                }
+            });
+
+            if (journal != null) {
+                journalRecords = journal.replay(this::replay);
+            }
 
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
+
+        loadStatistics = reportProgress(entries[0], journalRecords, start, true);
+    }
+
+    public LoadStatistics loadStatistics() {
+        return loadStatistics;
     }
 
     @Override
     public void add(T object) {
-        table.put(object.getKey(), object);
-        notifyAdd(object);
+        long sequence;
+        synchronized (lockFor(object.getKey())) {
+            T replaced = put(object);
+            markDirty(object.getKey());
+            if (replaced != null && replaced != object) {
+                notifyRemove(replaced);
+            }
+            notifyAdd(object);
+            sequence = append(JournalOperation.ADD, object.getKey(), object);
+        }
+
+        sync(sequence);
+    }
+
+    // Index keys have their own stripes, taken before the key stripe in add, so the two never wait on each other
+    @Override
+    public boolean addIfAbsent(String index, Object key, T object) {
+        synchronized (indexLocks[stripe(key)]) {
+            if (findBy(index, key).isPresent()) {
+                return false;
+            }
+
+            add(object);
+            return true;
+        }
     }
 
     @Override
@@ -77,10 +152,34 @@ public class FileRepository<K, T extends Entity<K>> extends Observable<T> implem
         return table.values().stream().anyMatch(predicate);
     }
 
+    @Override
+    public void addIndex(String name, Function<T, ?> keyExtractor) {
+        synchronized (persistLock) {
+            indexes.define(name, keyExtractor, table.values());
+        }
+    }
+
+    @Override
+    public Optional<T> findBy(String index, Object key) {
+        return indexes.get(index, key).stream().findFirst();
+    }
+
+    @Override
+    public Collection<T> findAllBy(String index, Object key) {
+        return indexes.get(index, key);
+    }
+
     @Override
     public void remove(K key) {
-        notifyRemove(table.get(key));
-        table.remove(key);
+        long sequence;
+        synchronized (lockFor(key)) {
+            notifyRemove(table.get(key));
+            indexes.remove(table.remove(key));
+            markDirty(key);
+            sequence = append(JournalOperation.REMOVE, key, null);
+        }
+
+        sync(sequence);
     }
 
     @Override
@@ -94,11 +193,137 @@ public class FileRepository<K, T extends Entity<K>> extends Observable<T> implem
     }
 
     @Override
-    public void persist() {
-        try (var writer = options.writer()) {
-            writer.write(options.serializer().serialize(table));
+    public boolean isDirty() {
+        return !dirty.isEmpty();
+    }
+
+    @Override
+    public PersistStatistics persist() {
+        synchronized (persistLock) {
+            return persistChanges();
+        }
+    }
+
+    private PersistStatistics persistChanges() {
+        if (dirty.isEmpty()) {
+            return PersistStatistics.EMPTY;
+        }
+
+        long start = System.nanoTime();
+        long version = versions.get();
+        long entities = dirty.values().stream().filter(x -> x <= version).count();
+        long bytes = 0;
+
+        try {
+            if (journal != null) {
+                long appended = journal.appendedBytes();
+                bytes += appended - journalBytesPersisted;
+                journalBytesPersisted = appended;
+            }
+
+            if (journal != null && journal.size() < options.compactionThreshold()) {
+                journal.sync(Long.MAX_VALUE);
+            } else {
+                bytes += writeSnapshot();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        dirty.values().removeIf(x -> x <= version);
+
+        return new PersistStatistics(entities, bytes, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    // Writers keep going while the snapshot is written, so it may already contain some changes made
+    // after the journal position was taken. Those records are kept and replayed on top of it on load;
+    // replaying an add or a remove of a key is idempotent, the last record for it wins.
+    private long writeSnapshot() throws IOException {
+        long position = journal == null ? 0 : journal.appendedBytes();
+
+        long written;
+        try (var output = options.output()) {
+            var counting = new CountingOutputStream(new BufferedOutputStream(output));
+            options.serializer().serializeEntries(counting, table.values(), valueType);
+            counting.flush();
+            output.commit();
+            written = counting.count();
+        }
+
+        if (journal != null) {
+            journal.truncateBefore(position);
+        }
+
+        return written;
+    }
+
+    private Object lockFor(K key) {
+        return locks[stripe(key)];
+    }
+
+    private static int stripe(Object key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    private void markDirty(K key) {
+        dirty.put(key, versions.incrementAndGet());
+    }
+
+    private T put(T object) {
+        T replaced = table.put(object.getKey(), object);
+        indexes.remove(replaced);
+        indexes.add(object);
+        return replaced;
+    }
+
+    private LoadStatistics reportProgress(long entries, long journalRecords, long start, boolean completed) {
+        var statistics = new LoadStatistics(entries, journalRecords, Duration.ofNanos(System.nanoTime() - start),
+            completed);
+
+        if (options.loadListener() != null) {
+            options.loadListener().onProgress(statistics);
+        }
+
+        return statistics;
+    }
+
+    private long append(JournalOperation operation, K key, T object) {
+        if (journal == null) {
+            return 0;
+        }
+
+        var serializer = options.serializer();
+        byte[] keyBytes = serializer.serializeBytes(key, keyType);
+        byte[] payload = object == null ? new byte[0] : serializer.serializeBytes(object, valueType);
+
+        return journal.append(new JournalRecord(operation, keyBytes, payload));
+    }
+
+    private void sync(long sequence) {
+        if (journal == null) {
+            return;
+        }
+
+        try {
+            journal.sync(sequence);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
+
+    private void replay(JournalRecord record) {
+        var serializer = options.serializer();
+        K key = serializer.deserializeBytes(record.key(), keyType);
+
+        T previous = table.remove(key);
+        if (previous != null) {
+            notifyRemove(previous);
+            indexes.remove(previous);
+        }
+
+        if (record.operation() == JournalOperation.ADD) {
+            put(serializer.deserializeBytes(record.payload(), valueType));
+        }
+    }
 }
@@ -1,22 +1,27 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository;
 
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.AtomicFileOutputStream;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize.DefaultSerializer;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize.Serializer;
 
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Reader;
-import java.io.Writer;
+import java.io.InputStream;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
 public class FileRepositoryOptions {
+    private static final String JOURNAL_EXTENSION = ".wal";
+    private static final long DEFAULT_COMPACTION_THRESHOLD = 4 * 1024 * 1024;
+
     private final String path;
     private final Serializer serializer;
+    private final boolean journalEnabled;
+    private final long compactionThreshold;
+    private final LoadListener loadListener;
 
     private FileRepositoryOptions(FileRepositoryOptionsBuilder builder) {
         if (builder.path == null || builder.path.isEmpty() || builder.path.isBlank()) {
@@ -24,25 +29,32 @@ public class FileRepositoryOptions {
         }
         this.path = builder.path;
         this.serializer = Nullable.orDefault(builder.serializer, new DefaultSerializer());
+        this.journalEnabled = builder.journalEnabled;
+        this.compactionThreshold =
+            builder.compactionThreshold > 0 ? builder.compactionThreshold : DEFAULT_COMPACTION_THRESHOLD;
+        this.loadListener = builder.loadListener;
     }
 
     public static FileRepositoryOptionsBuilder create(String path) {
         return new FileRepositoryOptionsBuilder(path);
     }
 
-    public Reader reader() {
+    public String path() {
+        return path;
+    }
+
+    public InputStream input() {
         try {
             ensureCreated(path);
-            return new FileReader(path);
+            return new FileInputStream(path);
         } catch (FileNotFoundException e) {
             throw new RuntimeException(e);
         }
     }
 
-    public Writer writer() {
+    public AtomicFileOutputStream output() {
         try {
-            ensureCreated(path);
-            return new FileWriter(path);
+            return new AtomicFileOutputStream(Path.of(path));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -52,6 +64,18 @@ public class FileRepositoryOptions {
         return serializer;
     }
 
+    public String journalPath() {
+        return journalEnabled ? path + JOURNAL_EXTENSION : null;
+    }
+
+    public long compactionThreshold() {
+        return compactionThreshold;
+    }
+
+    public LoadListener loadListener() {
+        return loadListener;
+    }
+
     private void ensureCreated(String path) {
         Path dir = Path.of(path);
 
@@ -71,6 +95,9 @@ public class FileRepositoryOptions {
 
         private final String path;
         private Serializer serializer;
+        private boolean journalEnabled = true;
+        private long compactionThreshold;
+        private LoadListener loadListener;
 
         public FileRepositoryOptionsBuilder(String path) {
             this.path = path;
@@ -81,6 +108,21 @@ public class FileRepositoryOptions {
             return this;
         }
 
+        public FileRepositoryOptionsBuilder disableJournal() {
+            this.journalEnabled = false;
+            return this;
+        }
+
+        public FileRepositoryOptionsBuilder configureCompactionThreshold(long bytes) {
+            this.compactionThreshold = bytes;
+            return this;
+        }
+
+        public FileRepositoryOptionsBuilder configureLoadListener(LoadListener loadListener) {
+            this.loadListener = loadListener;
+            return this;
+        }
+
         public FileRepositoryOptions build() {
             return new FileRepositoryOptions(this);
         }
@@ -0,0 +1,6 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository;
+
+@FunctionalInterface
+public interface LoadListener {
+    void onProgress(LoadStatistics statistics);
+}
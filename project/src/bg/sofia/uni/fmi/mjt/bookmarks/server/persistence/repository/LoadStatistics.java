@@ -0,0 +1,6 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository;
+
+import java.time.Duration;
+
+public record LoadStatistics(long entries, long journalRecords, Duration elapsed, boolean completed) {
+}
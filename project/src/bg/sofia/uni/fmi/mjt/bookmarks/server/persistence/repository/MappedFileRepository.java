@@ -0,0 +1,491 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.Entity;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.LinkedEntity;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.PersistStatistics;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// Records are appended to a memory-mapped data file split in fixed size pages and located through an
+// off-heap index, so neither the file nor the index lives on the Java heap. Plain entities are
+// deserialized again on every read and nothing is kept. Linked entities (users, groups, bookmarks) need
+// an identity map instead: they are materialized once, on first access or at load, and kept for as long
+// as the repository.
+public class MappedFileRepository<K, T extends Entity<K>> extends ObservableRepository<K, T> {
+
+    private static final String DATA_EXTENSION = ".mapped";
+    private static final String COMPACT_EXTENSION = ".compact";
+    private static final int PAGE_SIZE = 16 * 1024 * 1024;
+    private static final int HEADER_SIZE = Integer.BYTES + 1 + Integer.BYTES;
+    private static final byte LIVE = 1;
+    private static final byte REMOVED = 0;
+
+    private final FileRepositoryOptions options;
+    private final Path path;
+    private final Type keyType;
+    private final Type valueType;
+    private final Materialization materialization;
+
+    private final OffHeapIndex index;
+    private final Map<K, T> materialized;
+    private final SecondaryIndexes<T> indexes;
+    private final Map<String, Function<T, ?>> extractors;
+    private final List<MappedByteBuffer> pages;
+    private final Set<Integer> dirtyPages;
+    private long dirtyEntities;
+    private long dirtyBytes;
+    private FileChannel channel;
+    private long end;
+    private long garbage;
+
+    public enum Materialization {
+        NONE, ON_ACCESS, ON_LOAD
+    }
+
+    public MappedFileRepository(FileRepositoryOptions options, Class<K> keyType, Class<T> valueType) {
+        this(options, keyType, valueType,
+            LinkedEntity.class.isAssignableFrom(valueType) ? Materialization.ON_ACCESS : Materialization.NONE);
+    }
+
+    public MappedFileRepository(FileRepositoryOptions options, Class<K> keyType, Class<T> valueType,
+                                Materialization materialization) {
+        Nullable.throwIfAnyNull(options, materialization);
+        if (materialization == Materialization.NONE && LinkedEntity.class.isAssignableFrom(valueType)) {
+            throw new IllegalArgumentException(valueType.getSimpleName() + " has to be materialized only once.");
+        }
+
+        this.options = options;
+        this.path = Path.of(options.path() + DATA_EXTENSION);
+        this.keyType = keyType;
+        this.valueType = valueType;
+        this.materialization = materialization;
+
+        this.index = new OffHeapIndex();
+        this.materialized = new HashMap<>();
+        this.indexes = new SecondaryIndexes<>();
+        this.extractors = new HashMap<>();
+        this.pages = new ArrayList<>();
+        this.dirtyPages = new TreeSet<>();
+    }
+
+    @Override
+    public synchronized void load() {
+        long start = System.nanoTime();
+
+        dirtyPages.clear();
+        dirtyEntities = 0;
+        dirtyBytes = 0;
+
+        try {
+            open(path);
+            scan(this::index);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (materialization == Materialization.ON_LOAD) {
+            scan(this::materialize);
+        }
+
+        if (options.loadListener() != null) {
+            options.loadListener().onProgress(
+                new LoadStatistics(index.size(), 0, Duration.ofNanos(System.nanoTime() - start), true));
+        }
+    }
+
+    @Override
+    public synchronized void add(T object) {
+        byte[] key = keyBytes(object.getKey());
+        long hash = hash(key);
+
+        long previous = index.get(hash, offset -> Arrays.equals(keyAt(offset), key));
+        T replaced = null;
+        if (previous != OffHeapIndex.NOT_FOUND) {
+            replaced = lookup(object.getKey(), previous);
+            markRemoved(previous);
+        }
+
+        long offset = append(key, options.serializer().serializeBytes(object, valueType));
+        index.put(hash, offset, other -> Arrays.equals(keyAt(other), key));
+        if (keepsMaterialized()) {
+            indexes.remove(materialized.put(object.getKey(), object));
+            indexes.add(object);
+        }
+        dirtyEntities++;
+
+        if (replaced != null && replaced != object) {
+            notifyRemove(replaced);
+        }
+        notifyAdd(object);
+    }
+
+    @Override
+    public synchronized boolean addIfAbsent(String index, Object key, T object) {
+        if (findBy(index, key).isPresent()) {
+            return false;
+        }
+
+        add(object);
+        return true;
+    }
+
+    @Override
+    public synchronized Optional<T> get(K key) {
+        T cached = materialized.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        long offset = locate(keyBytes(key));
+        return offset == OffHeapIndex.NOT_FOUND ? Optional.empty() : Optional.of(lookup(key, offset));
+    }
+
+    @Override
+    public synchronized Optional<T> find(Predicate<T> predicate) {
+        return all().stream().filter(predicate).findFirst();
+    }
+
+    @Override
+    public synchronized boolean any(Predicate<T> predicate) {
+        return all().stream().anyMatch(predicate);
+    }
+
+    // Secondary indexes only cover materialized objects, so the first lookup materializes the repository.
+    // Without an identity map there is nothing to index and lookups scan the file instead
+    @Override
+    public synchronized void addIndex(String name, Function<T, ?> keyExtractor) {
+        extractors.put(name, keyExtractor);
+        if (keepsMaterialized()) {
+            indexes.define(name, keyExtractor, materialized.values());
+        }
+    }
+
+    @Override
+    public synchronized Optional<T> findBy(String index, Object key) {
+        return findAllBy(index, key).stream().findFirst();
+    }
+
+    @Override
+    public synchronized Collection<T> findAllBy(String index, Object key) {
+        var extractor = extractors.get(index);
+        if (extractor == null) {
+            throw new IllegalArgumentException("No index defined with name: " + index);
+        }
+
+        if (keepsMaterialized()) {
+            materializeAll();
+            return indexes.get(index, key);
+        }
+
+        return all().stream().filter(object -> key.equals(extractor.apply(object))).toList();
+    }
+
+    @Override
+    public synchronized void remove(K key) {
+        byte[] keyBytes = keyBytes(key);
+        long offset = locate(keyBytes);
+        if (offset == OffHeapIndex.NOT_FOUND) {
+            return;
+        }
+
+        notifyRemove(lookup(key, offset));
+
+        markRemoved(offset);
+        index.remove(hash(keyBytes), other -> other == offset);
+        indexes.remove(materialized.remove(key));
+        dirtyEntities++;
+    }
+
+    @Override
+    public synchronized boolean contains(K key) {
+        return materialized.containsKey(key) || locate(keyBytes(key)) != OffHeapIndex.NOT_FOUND;
+    }
+
+    @Override
+    public synchronized Collection<T> getAll() {
+        return all();
+    }
+
+    @Override
+    public synchronized boolean isDirty() {
+        return !dirtyPages.isEmpty();
+    }
+
+    // Only the pages touched since the last persist are flushed
+    @Override
+    public synchronized PersistStatistics persist() {
+        if (dirtyPages.isEmpty()) {
+            return PersistStatistics.EMPTY;
+        }
+
+        long start = System.nanoTime();
+
+        try {
+            if (garbage > end - garbage) {
+                compact();
+            }
+
+            dirtyPages.forEach(page -> pages.get(page).force());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        var statistics = new PersistStatistics(dirtyEntities, dirtyBytes, Duration.ofNanos(System.nanoTime() - start));
+        dirtyPages.clear();
+        dirtyEntities = 0;
+        dirtyBytes = 0;
+
+        return statistics;
+    }
+
+    private void open(Path file) throws IOException {
+        close();
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        for (long position = 0; position < channel.size(); position += PAGE_SIZE) {
+            pages.add(channel.map(FileChannel.MapMode.READ_WRITE, position, PAGE_SIZE));
+        }
+    }
+
+    private void close() throws IOException {
+        index.clear();
+        materialized.clear();
+        indexes.clear();
+        pages.clear();
+        end = 0;
+        garbage = 0;
+
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    // Visits live records in file order; a page ends at the first zero length and an empty page ends the file
+    private void scan(Consumer<Long> consumer) {
+        long lastEnd = 0;
+        long removed = 0;
+
+        for (int page = 0; page < pages.size(); page++) {
+            MappedByteBuffer buffer = pages.get(page);
+            int position = 0;
+            int length;
+
+            while (position + HEADER_SIZE <= PAGE_SIZE && (length = buffer.getInt(position)) != 0) {
+                long offset = (long) page * PAGE_SIZE + position;
+                if (buffer.get(position + Integer.BYTES) == LIVE) {
+                    consumer.accept(offset);
+                } else {
+                    removed += Integer.BYTES + length;
+                }
+
+                position += Integer.BYTES + length;
+                lastEnd = (long) page * PAGE_SIZE + position;
+            }
+
+            if (position == 0) {
+                break;
+            }
+        }
+
+        end = lastEnd;
+        garbage = removed;
+    }
+
+    private long append(byte[] key, byte[] payload) {
+        int length = 1 + Integer.BYTES + key.length + payload.length;
+        if (Integer.BYTES + length > PAGE_SIZE) {
+            throw new IllegalArgumentException("Record does not fit in a single page.");
+        }
+
+        int page = (int) (end / PAGE_SIZE);
+        int position = (int) (end % PAGE_SIZE);
+        if (position + Integer.BYTES + length > PAGE_SIZE) {
+            // Unused tail of the page stays zeroed and is skipped on scan
+            page++;
+            position = 0;
+        }
+
+        MappedByteBuffer buffer = page(page);
+        buffer.put(position + Integer.BYTES, LIVE);
+        buffer.putInt(position + Integer.BYTES + 1, key.length);
+        buffer.put(position + HEADER_SIZE, key);
+        buffer.put(position + HEADER_SIZE + key.length, payload);
+        // The length is written last, it is what makes the record visible to a scan
+        buffer.putInt(position, length);
+
+        long offset = (long) page * PAGE_SIZE + position;
+        end = offset + Integer.BYTES + length;
+        dirtyPages.add(page);
+        dirtyBytes += Integer.BYTES + length;
+        return offset;
+    }
+
+    private MappedByteBuffer page(int page) {
+        try {
+            while (pages.size() <= page) {
+                pages.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) pages.size() * PAGE_SIZE, PAGE_SIZE));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        return pages.get(page);
+    }
+
+    private void markRemoved(long offset) {
+        MappedByteBuffer buffer = pages.get((int) (offset / PAGE_SIZE));
+        int position = (int) (offset % PAGE_SIZE);
+
+        buffer.put(position + Integer.BYTES, REMOVED);
+        dirtyPages.add((int) (offset / PAGE_SIZE));
+        dirtyBytes++;
+        garbage += Integer.BYTES + buffer.getInt(position);
+    }
+
+    private void compact() throws IOException {
+        Path compacted = Path.of(path + COMPACT_EXTENSION);
+        Files.deleteIfExists(compacted);
+
+        Map<K, T> cache = new HashMap<>(materialized);
+        List<byte[][]> records = new ArrayList<>();
+        scan(offset -> records.add(new byte[][] {keyAt(offset), payloadAt(offset)}));
+
+        open(compacted);
+        records.forEach(record -> append(record[0], record[1]));
+        pages.forEach(MappedByteBuffer::force);
+        close();
+
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        open(path);
+        scan(this::index);
+        materialized.putAll(cache);
+        cache.values().forEach(indexes::add);
+
+        // The compacted file was forced before it replaced the old one
+        dirtyPages.clear();
+    }
+
+    private void index(long offset) {
+        byte[] key = keyAt(offset);
+        index.put(hash(key), offset, other -> Arrays.equals(keyAt(other), key));
+    }
+
+    private long locate(byte[] key) {
+        return index.get(hash(key), offset -> Arrays.equals(keyAt(offset), key));
+    }
+
+    private boolean keepsMaterialized() {
+        return materialization != Materialization.NONE;
+    }
+
+    private T lookup(K key, long offset) {
+        if (!keepsMaterialized()) {
+            return read(offset);
+        }
+
+        T cached = materialized.get(key);
+        return cached != null ? cached : materialize(offset);
+    }
+
+    // Without an identity map the result is a fresh copy of every record
+    private Collection<T> all() {
+        if (keepsMaterialized()) {
+            materializeAll();
+            return Collections.unmodifiableCollection(materialized.values());
+        }
+
+        List<T> objects = new ArrayList<>(index.size());
+        scan(offset -> objects.add(read(offset)));
+        return Collections.unmodifiableList(objects);
+    }
+
+    private T read(long offset) {
+        return options.serializer().deserializeBytes(payloadAt(offset), valueType);
+    }
+
+    private T materialize(long offset) {
+        T object = read(offset);
+        materialized.put(object.getKey(), object);
+        indexes.add(object);
+
+        return object;
+    }
+
+    private void materializeAll() {
+        if (materialized.size() == index.size()) {
+            return;
+        }
+
+        scan(offset -> {
+            if (!materialized.containsKey(decodeKey(keyAt(offset)))) {
+                materialize(offset);
+            }
+        });
+    }
+
+    private byte[] keyAt(long offset) {
+        MappedByteBuffer buffer = pages.get((int) (offset / PAGE_SIZE));
+        int position = (int) (offset % PAGE_SIZE);
+
+        byte[] key = new byte[buffer.getInt(position + Integer.BYTES + 1)];
+        buffer.get(position + HEADER_SIZE, key);
+        return key;
+    }
+
+    private byte[] payloadAt(long offset) {
+        MappedByteBuffer buffer = pages.get((int) (offset / PAGE_SIZE));
+        int position = (int) (offset % PAGE_SIZE);
+
+        int keyLength = buffer.getInt(position + Integer.BYTES + 1);
+        byte[] payload = new byte[buffer.getInt(position) - 1 - Integer.BYTES - keyLength];
+        buffer.get(position + HEADER_SIZE + keyLength, payload);
+        return payload;
+    }
+
+    private byte[] keyBytes(K key) {
+        return options.serializer().serializeBytes(key, keyType);
+    }
+
+    private K decodeKey(byte[] key) {
+        return options.serializer().deserializeBytes(key, keyType);
+    }
+
+    private static long hash(byte[] key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+
+        return hash;
+    }
+}
@@ -0,0 +1,8 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.Entity;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.observe.Observable;
+
+// A repository whose changes observers can follow
+public abstract class ObservableRepository<K, T extends Entity<K>> extends Observable<T> implements Repository<K, T> {
+}
@@ -0,0 +1,134 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository;
+
+import java.nio.ByteBuffer;
+import java.util.function.LongPredicate;
+
+// Open addressing hash table kept in a direct buffer: every slot holds the 64-bit key hash and the
+// record offset (+1, so 0 means an empty slot). Hash collisions are resolved by the caller checking
+// the key stored at the offset.
+public class OffHeapIndex {
+
+    public static final long NOT_FOUND = -1;
+
+    private static final int SLOT_SIZE = 2 * Long.BYTES;
+    private static final long EMPTY = 0;
+    private static final long REMOVED = -1;
+    private static final int MIN_CAPACITY = 1024;
+    private static final double LOAD_FACTOR = 0.7;
+
+    private ByteBuffer slots;
+    private int capacity;
+    private int size;
+    private int used;
+
+    public OffHeapIndex() {
+        this(MIN_CAPACITY);
+    }
+
+    public OffHeapIndex(int initialCapacity) {
+        allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, initialCapacity - 1)) << 1));
+    }
+
+    public long get(long hash, LongPredicate matches) {
+        int slot = find(hash, matches);
+        return slot < 0 ? NOT_FOUND : offsetAt(slot);
+    }
+
+    public void put(long hash, long offset, LongPredicate matches) {
+        int slot = find(hash, matches);
+        if (slot >= 0) {
+            slots.putLong(slot * SLOT_SIZE + Long.BYTES, offset + 1);
+            return;
+        }
+
+        if (used + 1 > capacity * LOAD_FACTOR) {
+            resize(size + 1 > capacity * LOAD_FACTOR / 2 ? capacity * 2 : capacity);
+        }
+
+        insert(hash, offset);
+        size++;
+    }
+
+    public long remove(long hash, LongPredicate matches) {
+        int slot = find(hash, matches);
+        if (slot < 0) {
+            return NOT_FOUND;
+        }
+
+        long offset = offsetAt(slot);
+        slots.putLong(slot * SLOT_SIZE + Long.BYTES, REMOVED);
+        size--;
+        return offset;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        allocate(MIN_CAPACITY);
+    }
+
+    private int find(long hash, LongPredicate matches) {
+        int mask = capacity - 1;
+        for (int slot = (int) mix(hash) & mask, probes = 0; probes < capacity; slot = (slot + 1) & mask, probes++) {
+            long stored = slots.getLong(slot * SLOT_SIZE + Long.BYTES);
+            if (stored == EMPTY) {
+                return -1;
+            }
+
+            if (stored != REMOVED && slots.getLong(slot * SLOT_SIZE) == hash && matches.test(stored - 1)) {
+                return slot;
+            }
+        }
+
+        return -1;
+    }
+
+    private void insert(long hash, long offset) {
+        int mask = capacity - 1;
+        int slot = (int) mix(hash) & mask;
+        long stored;
+        while ((stored = slots.getLong(slot * SLOT_SIZE + Long.BYTES)) != EMPTY && stored != REMOVED) {
+            slot = (slot + 1) & mask;
+        }
+
+        if (stored == EMPTY) {
+            used++;
+        }
+        slots.putLong(slot * SLOT_SIZE, hash);
+        slots.putLong(slot * SLOT_SIZE + Long.BYTES, offset + 1);
+    }
+
+    private void resize(int newCapacity) {
+        ByteBuffer old = slots;
+        int oldCapacity = capacity;
+
+        allocate(newCapacity);
+        for (int slot = 0; slot < oldCapacity; slot++) {
+            long stored = old.getLong(slot * SLOT_SIZE + Long.BYTES);
+            if (stored != EMPTY && stored != REMOVED) {
+                insert(old.getLong(slot * SLOT_SIZE), stored - 1);
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int newCapacity) {
+        capacity = newCapacity;
+        slots = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+        size = 0;
+        used = 0;
+    }
+
+    private long offsetAt(int slot) {
+        return slots.getLong(slot * SLOT_SIZE + Long.BYTES) - 1;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -1,28 +1,42 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository;
 
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.Entity;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.PersistStatistics;
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 public interface Repository<K, T extends Entity<K>> {
 
     void add(T object);
 
+    // Adds the object only when no object is found under the key in the given index, as one step.
+    // Returns false when one is
+    boolean addIfAbsent(String index, Object key, T object);
+
     Optional<T> get(K key);
 
     Optional<T> find(Predicate<T> predicate);
 
     boolean any(Predicate<T> predicate);
 
+    void addIndex(String name, Function<T, ?> keyExtractor);
+
+    Optional<T> findBy(String index, Object key);
+
+    Collection<T> findAllBy(String index, Object key);
+
     void remove(K key);
 
     boolean contains(K key);
 
     Collection<T> getAll();
 
-    void persist();
+    boolean isDirty();
+
+    PersistStatistics persist();
 
     void load();
 }
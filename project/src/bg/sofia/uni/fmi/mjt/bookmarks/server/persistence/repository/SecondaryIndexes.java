@@ -0,0 +1,86 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Buckets are only modified inside compute() of their index map, which serializes writers per key;
+// readers copy them under the bucket's own lock
+public class SecondaryIndexes<T> {
+
+    private final Map<String, Function<T, ?>> extractors;
+    private final Map<String, Map<Object, Set<T>>> indexes;
+
+    public SecondaryIndexes() {
+        this.extractors = new ConcurrentHashMap<>();
+        this.indexes = new ConcurrentHashMap<>();
+    }
+
+    public void define(String name, Function<T, ?> extractor, Collection<T> existing) {
+        indexes.put(name, new ConcurrentHashMap<>());
+        extractors.put(name, extractor);
+
+        existing.forEach(object -> add(name, object));
+    }
+
+    public void add(T object) {
+        extractors.keySet().forEach(name -> add(name, object));
+    }
+
+    public void remove(T object) {
+        if (object == null) {
+            return;
+        }
+
+        extractors.forEach((name, extractor) -> {
+            Object key = extractor.apply(object);
+            if (key == null) {
+                return;
+            }
+
+            indexes.get(name).computeIfPresent(key, (k, entries) -> {
+                entries.remove(object);
+                return entries.isEmpty() ? null : entries;
+            });
+        });
+    }
+
+    public void clear() {
+        indexes.values().forEach(Map::clear);
+    }
+
+    public Collection<T> get(String name, Object key) {
+        var index = indexes.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("No index defined with name: " + name);
+        }
+
+        var entries = index.get(key);
+        if (entries == null) {
+            return Collections.emptyList();
+        }
+
+        synchronized (entries) {
+            return List.copyOf(entries);
+        }
+    }
+
+    private void add(String name, T object) {
+        Object key = extractors.get(name).apply(object);
+        if (key == null) {
+            return;
+        }
+
+        indexes.get(name).compute(key, (k, entries) -> {
+            var bucket = entries == null ? Collections.synchronizedSet(Collections.<T>newSetFromMap(
+                new IdentityHashMap<>())) : entries;
+            bucket.add(object);
+            return bucket;
+        });
+    }
+}
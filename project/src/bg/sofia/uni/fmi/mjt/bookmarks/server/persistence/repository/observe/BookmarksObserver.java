@@ -4,26 +4,40 @@ import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Group;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.Repository;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.search.SearchIndex;
 
 public class BookmarksObserver implements Observer<Bookmark> {
 
     private final Repository<String, User> userRepository;
     private final Repository<String, Group> groupRepository;
+    private final SearchIndex searchIndex;
 
-    public BookmarksObserver(Repository<String, User> userRepository, Repository<String, Group> groupRepository) {
+    public BookmarksObserver(Repository<String, User> userRepository, Repository<String, Group> groupRepository,
+                             SearchIndex searchIndex) {
         this.userRepository = userRepository;
         this.groupRepository = groupRepository;
+        this.searchIndex = searchIndex;
     }
 
     @Override
     public void notifyAdd(Bookmark object) {
-        userRepository.find(u -> u == object.getUser()).ifPresent(u -> u.bookmarksSynchronizer().add(object));
-        groupRepository.find(u -> u == object.getGroup()).ifPresent(b -> b.bookmarksSynchronizer().add(object));
+        userRepository.get(object.getUser().getKey())
+            .filter(u -> u == object.getUser())
+            .ifPresent(u -> u.bookmarksSynchronizer().add(object));
+        groupRepository.get(object.getGroup().getKey())
+            .filter(g -> g == object.getGroup())
+            .ifPresent(g -> g.bookmarksSynchronizer().add(object));
+        searchIndex.add(object);
     }
 
     @Override
     public void notifyRemove(Bookmark object) {
-        userRepository.find(u -> u == object.getUser()).ifPresent(u -> u.bookmarksSynchronizer().remove(object));
-        groupRepository.find(u -> u == object.getGroup()).ifPresent(b -> b.bookmarksSynchronizer().remove(object));
+        userRepository.get(object.getUser().getKey())
+            .filter(u -> u == object.getUser())
+            .ifPresent(u -> u.bookmarksSynchronizer().remove(object));
+        groupRepository.get(object.getGroup().getKey())
+            .filter(g -> g == object.getGroup())
+            .ifPresent(g -> g.bookmarksSynchronizer().remove(object));
+        searchIndex.remove(object);
     }
 }
@@ -16,11 +16,15 @@ public class GroupsObserver implements Observer<Group> {
 
     @Override
     public void notifyAdd(Group object) {
-        userRepository.find(u -> u == object.getUser()).ifPresent(u -> u.groupsSynchronizer().add(object));
+        userRepository.get(object.getUser().getKey())
+            .filter(u -> u == object.getUser())
+            .ifPresent(u -> u.groupsSynchronizer().add(object));
     }
 
     @Override
     public void notifyRemove(Group object) {
-        userRepository.find(u -> u == object.getUser()).ifPresent(u -> u.groupsSynchronizer().remove(object));
+        userRepository.get(object.getUser().getKey())
+            .filter(u -> u == object.getUser())
+            .ifPresent(u -> u.groupsSynchronizer().remove(object));
     }
 }
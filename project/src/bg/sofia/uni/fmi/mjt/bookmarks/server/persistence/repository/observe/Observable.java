@@ -1,14 +1,14 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.observe;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Observable<K> {
 
     private final List<Observer<K>> observers;
 
     public Observable() {
-        this.observers = new ArrayList<>();
+        this.observers = new CopyOnWriteArrayList<>();
     }
 
     public void attach(Observer<K> observer) {
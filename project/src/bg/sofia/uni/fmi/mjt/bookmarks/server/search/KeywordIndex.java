@@ -0,0 +1,127 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.search;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.StemmingAlgo;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Inverted index: keyword -> bookmark id -> term frequency weight
+public class KeywordIndex {
+
+    private final Map<String, Map<String, Double>> postings;
+    private final Map<String, Bookmark> bookmarks;
+
+    public KeywordIndex() {
+        this.postings = new HashMap<>();
+        this.bookmarks = new HashMap<>();
+    }
+
+    public void add(Bookmark bookmark) {
+        remove(bookmark);
+        bookmarks.put(bookmark.getKey(), bookmark);
+
+        // Keywords are sorted by their count on the page, the rank stands in for the term frequency
+        var keywords = bookmark.getKeywords();
+        for (int rank = 0; rank < keywords.size(); rank++) {
+            double frequency = 1.0 - (double) rank / keywords.size();
+            postings.computeIfAbsent(keywords.get(rank), k -> new HashMap<>())
+                .merge(bookmark.getKey(), frequency, Math::max);
+        }
+    }
+
+    public void remove(Bookmark bookmark) {
+        var removed = bookmarks.remove(bookmark.getKey());
+        if (removed == null) {
+            return;
+        }
+
+        for (String keyword : removed.getKeywords()) {
+            var posting = postings.get(keyword);
+            if (posting != null) {
+                posting.remove(removed.getKey());
+                if (posting.isEmpty()) {
+                    postings.remove(keyword);
+                }
+            }
+        }
+    }
+
+    public Bookmark get(String key) {
+        return bookmarks.get(key);
+    }
+
+    public int size() {
+        return bookmarks.size();
+    }
+
+    public void clear() {
+        postings.clear();
+        bookmarks.clear();
+    }
+
+    // Ranked by tf-idf; with matchAll only bookmarks having every tag are returned
+    public List<Bookmark> search(Collection<String> tags, boolean matchAll) {
+        var terms = tags.stream().map(this::postingsFor).sorted(Comparator.comparingInt(Map::size)).toList();
+        if (terms.isEmpty() || (matchAll && terms.get(0).isEmpty())) {
+            return List.of();
+        }
+
+        Map<String, Double> scores = new HashMap<>();
+        if (matchAll) {
+            // Walk the shortest posting list and probe the others
+            for (String id : terms.get(0).keySet()) {
+                double score = 0;
+                for (var posting : terms) {
+                    Double frequency = posting.get(id);
+                    if (frequency == null) {
+                        score = -1;
+                        break;
+                    }
+                    score += frequency * idf(posting);
+                }
+
+                if (score >= 0) {
+                    scores.put(id, score);
+                }
+            }
+        } else {
+            for (var posting : terms) {
+                double idf = idf(posting);
+                posting.forEach((id, frequency) -> scores.merge(id, frequency * idf, Double::sum));
+            }
+        }
+
+        return scores.entrySet().stream()
+            .sorted(Map.Entry.<String, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()))
+            .map(x -> bookmarks.get(x.getKey()))
+            .toList();
+    }
+
+    private double idf(Map<String, Double> posting) {
+        return Math.log(1 + (double) bookmarks.size() / posting.size());
+    }
+
+    // Keywords are stored stemmed, so a tag matches either as typed or after the same stemming
+    private Map<String, Double> postingsFor(String tag) {
+        String term = tag.trim().toLowerCase();
+        String stemmed = StemmingAlgo.suffixStripping(term);
+
+        var exact = postings.getOrDefault(term, Map.of());
+        var stemmedPosting = postings.getOrDefault(stemmed, Map.of());
+        if (stemmedPosting.isEmpty() || term.equals(stemmed)) {
+            return exact;
+        }
+        if (exact.isEmpty()) {
+            return stemmedPosting;
+        }
+
+        Map<String, Double> merged = new HashMap<>(exact);
+        stemmedPosting.forEach((id, frequency) -> merged.merge(id, frequency, Math::max));
+        return merged;
+    }
+}
@@ -0,0 +1,123 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.search;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.PersistStatistics;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.AtomicFileOutputStream;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.CountingOutputStream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// Keyword and title indexes are derived from the bookmarks repository: kept up to date by its observer
+// and rebuilt after a load. Page content is not stored anywhere else, so the text indexes are persisted
+// to one file per user in the given directory (or kept in memory only when there is none).
+public class SearchIndex {
+
+    private static final String EXTENSION = ".idx";
+
+    private final Path directory;
+    private final Map<String, UserSearchIndex> users;
+    private final Set<String> dirty;
+
+    public SearchIndex() {
+        this(null);
+    }
+
+    public SearchIndex(Path directory) {
+        this.directory = directory;
+        this.users = new ConcurrentHashMap<>();
+        this.dirty = ConcurrentHashMap.newKeySet();
+    }
+
+    public void add(Bookmark bookmark) {
+        forUser(bookmark.getUser()).add(bookmark);
+    }
+
+    public void remove(Bookmark bookmark) {
+        var index = users.get(bookmark.getUser().getKey());
+        if (index != null && index.remove(bookmark)) {
+            dirty.add(bookmark.getUser().getKey());
+        }
+    }
+
+    public void addContent(Bookmark bookmark, String content) {
+        forUser(bookmark.getUser()).addContent(bookmark.getKey(), Tokenizer.tokenize(content));
+        dirty.add(bookmark.getUser().getKey());
+    }
+
+    public void rebuild(Collection<Bookmark> bookmarks) {
+        users.values().forEach(UserSearchIndex::clearBookmarks);
+        bookmarks.forEach(this::add);
+    }
+
+    public UserSearchIndex forUser(User user) {
+        return users.computeIfAbsent(user.getKey(), k -> new UserSearchIndex());
+    }
+
+    public void load() {
+        if (directory == null || !Files.isDirectory(directory)) {
+            return;
+        }
+
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(x -> x.getFileName().toString().endsWith(EXTENSION)).toList();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            String userKey = name.substring(0, name.length() - EXTENSION.length());
+
+            try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                users.computeIfAbsent(userKey, k -> new UserSearchIndex()).readContent(input);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    public PersistStatistics persist() {
+        if (directory == null || dirty.isEmpty()) {
+            return PersistStatistics.EMPTY;
+        }
+
+        long start = System.nanoTime();
+        long entities = 0;
+        long bytes = 0;
+
+        for (String userKey : List.copyOf(dirty)) {
+            dirty.remove(userKey);
+
+            try (var output = new AtomicFileOutputStream(directory.resolve(userKey + EXTENSION))) {
+                var counting = new CountingOutputStream(new BufferedOutputStream(output));
+                var data = new DataOutputStream(counting);
+                users.get(userKey).writeContent(data);
+                data.flush();
+                output.commit();
+
+                entities++;
+                bytes += counting.count();
+            } catch (IOException e) {
+                dirty.add(userKey);
+                throw new RuntimeException(e);
+            }
+        }
+
+        return new PersistStatistics(entities, bytes, Duration.ofNanos(System.nanoTime() - start));
+    }
+}
@@ -0,0 +1,395 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.search;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Positional inverted index over page text. A posting list is a varint encoded byte array holding,
+// for every document in increasing id order, [doc id delta][position count][position deltas...].
+// New documents go to an in-memory segment that is frozen once it holds FLUSH_POSITIONS positions;
+// when there are more than MAX_SEGMENTS frozen segments they are merged into one and removed
+// documents are dropped on the way.
+public class TextIndex {
+
+    private static final int MAGIC = 0x424D5401;
+    private static final int FLUSH_POSITIONS = 1 << 16;
+    private static final int MAX_SEGMENTS = 8;
+
+    private static final String OR_OPERATOR = "OR";
+    private static final Pattern QUERY_ITEM = Pattern.compile("(-?)\"([^\"]*)\"|(\\S+)");
+
+    private final Map<String, Integer> documents;
+    private final Map<Integer, String> keys;
+    private final Set<Integer> removed;
+    private final List<Map<String, byte[]>> segments;
+    private Map<String, PostingsWriter> buffer;
+    private int bufferedPositions;
+    private int nextDocument;
+
+    private record QueryItem(List<String> terms, boolean negated) {
+    }
+
+    public TextIndex() {
+        this.documents = new HashMap<>();
+        this.keys = new HashMap<>();
+        this.removed = new HashSet<>();
+        this.segments = new ArrayList<>();
+        this.buffer = new HashMap<>();
+    }
+
+    public void add(String key, List<String> tokens) {
+        remove(key);
+
+        int document = nextDocument++;
+        documents.put(key, document);
+        keys.put(document, key);
+
+        Map<String, List<Integer>> positions = new LinkedHashMap<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            positions.computeIfAbsent(tokens.get(i), k -> new ArrayList<>()).add(i);
+        }
+        positions.forEach((term, list) -> buffer.computeIfAbsent(term, k -> new PostingsWriter()).add(document, list));
+
+        bufferedPositions += tokens.size();
+        if (bufferedPositions >= FLUSH_POSITIONS) {
+            flush();
+        }
+    }
+
+    public boolean remove(String key) {
+        Integer document = documents.remove(key);
+        if (document == null) {
+            return false;
+        }
+
+        keys.remove(document);
+        removed.add(document);
+        return true;
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    // Space separated items must all match, OR separates alternatives, "quoted text" is a phrase and
+    // a leading - excludes the documents matching the item. Keys are ranked by the number of matches.
+    public List<String> search(String query) {
+        Map<Integer, Integer> scores = new HashMap<>();
+        for (var clause : parse(query)) {
+            evaluate(clause).forEach((document, count) -> scores.merge(document, count, Integer::sum));
+        }
+
+        return scores.entrySet().stream()
+            .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()))
+            .map(x -> keys.get(x.getKey()))
+            .toList();
+    }
+
+    public void flush() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+
+        segments.add(freeze(buffer));
+        buffer = new HashMap<>();
+        bufferedPositions = 0;
+
+        if (segments.size() > MAX_SEGMENTS) {
+            merge();
+        }
+    }
+
+    public void write(DataOutputStream output) throws IOException {
+        flush();
+
+        output.writeInt(MAGIC);
+        output.writeInt(nextDocument);
+        output.writeInt(documents.size());
+        for (var entry : documents.entrySet()) {
+            output.writeUTF(entry.getKey());
+            output.writeInt(entry.getValue());
+        }
+
+        output.writeInt(removed.size());
+        for (int document : removed) {
+            output.writeInt(document);
+        }
+
+        output.writeInt(segments.size());
+        for (var segment : segments) {
+            output.writeInt(segment.size());
+            for (var entry : segment.entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeInt(entry.getValue().length);
+                output.write(entry.getValue());
+            }
+        }
+    }
+
+    public void read(DataInputStream input) throws IOException {
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a text index.");
+        }
+
+        documents.clear();
+        keys.clear();
+        removed.clear();
+        segments.clear();
+        buffer = new HashMap<>();
+        bufferedPositions = 0;
+
+        nextDocument = input.readInt();
+        for (int i = input.readInt(); i > 0; i--) {
+            String key = input.readUTF();
+            int document = input.readInt();
+            documents.put(key, document);
+            keys.put(document, key);
+        }
+
+        for (int i = input.readInt(); i > 0; i--) {
+            removed.add(input.readInt());
+        }
+
+        for (int i = input.readInt(); i > 0; i--) {
+            Map<String, byte[]> segment = new HashMap<>();
+            for (int j = input.readInt(); j > 0; j--) {
+                String term = input.readUTF();
+                byte[] postings = new byte[input.readInt()];
+                input.readFully(postings);
+                segment.put(term, postings);
+            }
+            segments.add(segment);
+        }
+    }
+
+    private void merge() {
+        Map<String, PostingsWriter> merged = new HashMap<>();
+        for (var segment : segments) {
+            segment.forEach((term, postings) -> {
+                var reader = new PostingsReader(postings);
+                while (reader.next()) {
+                    if (!removed.contains(reader.document())) {
+                        merged.computeIfAbsent(term, k -> new PostingsWriter())
+                            .add(reader.document(), reader.positions());
+                    }
+                }
+            });
+        }
+
+        segments.clear();
+        segments.add(freeze(merged));
+        removed.clear();
+    }
+
+    private static Map<String, byte[]> freeze(Map<String, PostingsWriter> writers) {
+        Map<String, byte[]> segment = new HashMap<>();
+        writers.forEach((term, writer) -> segment.put(term, writer.toByteArray()));
+        return segment;
+    }
+
+    private Map<Integer, int[]> postings(String term) {
+        Map<Integer, int[]> result = new HashMap<>();
+        for (var segment : segments) {
+            read(segment.get(term), result);
+        }
+
+        var buffered = buffer.get(term);
+        if (buffered != null) {
+            read(buffered.toByteArray(), result);
+        }
+
+        return result;
+    }
+
+    private void read(byte[] postings, Map<Integer, int[]> result) {
+        if (postings == null) {
+            return;
+        }
+
+        var reader = new PostingsReader(postings);
+        while (reader.next()) {
+            if (!removed.contains(reader.document())) {
+                result.put(reader.document(), reader.positions().stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+    }
+
+    private List<List<QueryItem>> parse(String query) {
+        List<List<QueryItem>> clauses = new ArrayList<>();
+        List<QueryItem> clause = new ArrayList<>();
+
+        Matcher matcher = QUERY_ITEM.matcher(query);
+        while (matcher.find()) {
+            if (matcher.group(3) != null && matcher.group(3).equals(OR_OPERATOR)) {
+                clauses.add(clause);
+                clause = new ArrayList<>();
+                continue;
+            }
+
+            boolean phrase = matcher.group(2) != null;
+            String text = phrase ? matcher.group(2) : matcher.group(3);
+            boolean negated = phrase ? !matcher.group(1).isEmpty() : text.startsWith("-");
+
+            var terms = Tokenizer.tokenize(negated && !phrase ? text.substring(1) : text);
+            if (!terms.isEmpty()) {
+                clause.add(new QueryItem(terms, negated));
+            }
+        }
+        clauses.add(clause);
+
+        return clauses;
+    }
+
+    private Map<Integer, Integer> evaluate(List<QueryItem> clause) {
+        var matches = clause.stream()
+            .filter(x -> !x.negated())
+            .map(x -> match(x.terms()))
+            .sorted(Comparator.comparingInt(Map::size))
+            .toList();
+        if (matches.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<Integer, Integer> result = new HashMap<>(matches.get(0));
+        for (int i = 1; i < matches.size(); i++) {
+            var other = matches.get(i);
+            result.keySet().retainAll(other.keySet());
+            result.replaceAll((document, count) -> count + other.get(document));
+        }
+
+        clause.stream()
+            .filter(QueryItem::negated)
+            .forEach(x -> result.keySet().removeAll(match(x.terms()).keySet()));
+
+        return result;
+    }
+
+    // Document -> number of occurrences of the terms as a phrase
+    private Map<Integer, Integer> match(List<String> terms) {
+        List<Map<Integer, int[]>> postings = terms.stream().map(this::postings).toList();
+
+        Map<Integer, Integer> result = new HashMap<>();
+        for (var entry : postings.get(0).entrySet()) {
+            int count = 0;
+            for (int position : entry.getValue()) {
+                if (followedBy(postings, entry.getKey(), position)) {
+                    count++;
+                }
+            }
+
+            if (count > 0) {
+                result.put(entry.getKey(), count);
+            }
+        }
+
+        return result;
+    }
+
+    private static boolean followedBy(List<Map<Integer, int[]>> postings, int document, int position) {
+        for (int i = 1; i < postings.size(); i++) {
+            int[] positions = postings.get(i).get(document);
+            if (positions == null || Arrays.binarySearch(positions, position + i) < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static class PostingsWriter {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private int lastDocument;
+
+        void add(int document, List<Integer> positions) {
+            writeVarInt(document - lastDocument);
+            writeVarInt(positions.size());
+
+            int last = 0;
+            for (int position : positions) {
+                writeVarInt(position - last);
+                last = position;
+            }
+
+            lastDocument = document;
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+
+        private void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                bytes.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes.write(value);
+        }
+    }
+
+    private static class PostingsReader {
+
+        private final byte[] bytes;
+        private int offset;
+        private int document;
+        private List<Integer> positions;
+
+        PostingsReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        boolean next() {
+            if (offset >= bytes.length) {
+                return false;
+            }
+
+            document += readVarInt();
+            int count = readVarInt();
+
+            positions = new ArrayList<>(count);
+            int last = 0;
+            for (int i = 0; i < count; i++) {
+                last += readVarInt();
+                positions.add(last);
+            }
+
+            return true;
+        }
+
+        int document() {
+            return document;
+        }
+
+        List<Integer> positions() {
+            return positions;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte current = bytes[offset++];
+                value |= (current & 0x7F) << shift;
+                if ((current & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+    }
+}
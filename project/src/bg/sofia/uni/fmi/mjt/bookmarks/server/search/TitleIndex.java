@@ -0,0 +1,168 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.search;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Trigram index over lowercased titles. A substring query is answered by intersecting the posting sets
+// of its trigrams and verifying the candidates; when nothing contains the query the titles sharing
+// most of its trigrams are returned instead.
+public class TitleIndex {
+
+    private static final int GRAM_LENGTH = 3;
+    private static final double MIN_SIMILARITY = 0.5;
+
+    private static final int TITLE_PREFIX = 0;
+    private static final int WORD_PREFIX = 1;
+    private static final int INFIX = 2;
+
+    private final Map<String, Set<String>> grams;
+    private final Map<String, String> titles;
+    private final Map<String, Bookmark> bookmarks;
+
+    private record Match(String id, int kind, int position, double similarity) {
+    }
+
+    public TitleIndex() {
+        this.grams = new HashMap<>();
+        this.titles = new HashMap<>();
+        this.bookmarks = new HashMap<>();
+    }
+
+    public void add(Bookmark bookmark) {
+        remove(bookmark);
+
+        String id = bookmark.getKey();
+        String title = bookmark.getTitle() == null ? "" : bookmark.getTitle().toLowerCase();
+        var titleGrams = grams(title);
+
+        bookmarks.put(id, bookmark);
+        titles.put(id, title);
+        titleGrams.forEach(gram -> grams.computeIfAbsent(gram, k -> new HashSet<>()).add(id));
+    }
+
+    public void remove(Bookmark bookmark) {
+        String id = bookmark.getKey();
+        String title = titles.remove(id);
+        if (title == null) {
+            return;
+        }
+
+        bookmarks.remove(id);
+        for (String gram : grams(title)) {
+            var ids = grams.get(gram);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                grams.remove(gram);
+            }
+        }
+    }
+
+    public void clear() {
+        grams.clear();
+        titles.clear();
+        bookmarks.clear();
+    }
+
+    // Titles starting with the query come first, then titles with a word starting with it, then the rest;
+    // ties go to the earlier match and the shorter title
+    public List<Bookmark> search(String query) {
+        String text = query.trim().toLowerCase();
+        if (text.isEmpty()) {
+            return List.of();
+        }
+
+        var queryGrams = grams(text);
+        var matches = substringMatches(text, queryGrams);
+        if (matches.isEmpty()) {
+            matches = fuzzyMatches(queryGrams);
+        }
+
+        return matches.stream()
+            .sorted(Comparator.comparingInt(Match::kind)
+                .thenComparing(Comparator.comparingDouble(Match::similarity).reversed())
+                .thenComparingInt(Match::position)
+                .thenComparingInt(x -> titles.get(x.id()).length())
+                .thenComparing(Match::id))
+            .map(x -> bookmarks.get(x.id()))
+            .toList();
+    }
+
+    private List<Match> substringMatches(String text, Set<String> queryGrams) {
+        Set<String> candidates = text.length() < GRAM_LENGTH ? titles.keySet() : intersect(queryGrams);
+
+        List<Match> matches = new ArrayList<>();
+        for (String id : candidates) {
+            String title = titles.get(id);
+            int position = title.indexOf(text);
+            if (position < 0) {
+                continue;
+            }
+
+            int kind = position == 0 ? TITLE_PREFIX
+                : Character.isLetterOrDigit(title.charAt(position - 1)) ? INFIX : WORD_PREFIX;
+            matches.add(new Match(id, kind, position, 1));
+        }
+
+        return matches;
+    }
+
+    private List<Match> fuzzyMatches(Set<String> queryGrams) {
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : queryGrams) {
+            grams.getOrDefault(gram, Set.of()).forEach(id -> shared.merge(id, 1, Integer::sum));
+        }
+
+        List<Match> matches = new ArrayList<>();
+        // Share of the query found in the title, a long title should not be penalized for the rest of it
+        shared.forEach((id, count) -> {
+            double similarity = (double) count / queryGrams.size();
+            if (similarity >= MIN_SIMILARITY) {
+                matches.add(new Match(id, INFIX, 0, similarity));
+            }
+        });
+
+        return matches;
+    }
+
+    private Set<String> intersect(Set<String> queryGrams) {
+        List<Set<String>> postings = new ArrayList<>();
+        for (String gram : queryGrams) {
+            var ids = grams.get(gram);
+            if (ids == null) {
+                return Set.of();
+            }
+            postings.add(ids);
+        }
+
+        postings.sort(Comparator.comparingInt(Set::size));
+        Set<String> result = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+            result.retainAll(postings.get(i));
+        }
+
+        return result;
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> result = new HashSet<>();
+        if (text.length() < GRAM_LENGTH) {
+            if (!text.isEmpty()) {
+                result.add(text);
+            }
+            return result;
+        }
+
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            result.add(text.substring(i, i + GRAM_LENGTH));
+        }
+
+        return result;
+    }
+}
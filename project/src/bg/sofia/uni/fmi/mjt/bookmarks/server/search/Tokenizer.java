@@ -0,0 +1,20 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.search;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.StemmingAlgo;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class Tokenizer {
+
+    private static final String SPLIT_REGEX = "[\\s\\p{IsPunctuation}]+";
+
+    public static List<String> tokenize(String text) {
+        return Arrays.stream(text.split(SPLIT_REGEX))
+            .filter(x -> !x.isEmpty())
+            .map(String::toLowerCase)
+            .map(StemmingAlgo::suffixStripping)
+            .filter(x -> !x.isEmpty())
+            .toList();
+    }
+}
@@ -0,0 +1,67 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.search;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+// All indexes over the bookmarks of a single user
+public class UserSearchIndex {
+
+    private final KeywordIndex keywords;
+    private final TitleIndex titles;
+    private final TextIndex text;
+
+    public UserSearchIndex() {
+        this.keywords = new KeywordIndex();
+        this.titles = new TitleIndex();
+        this.text = new TextIndex();
+    }
+
+    public synchronized void add(Bookmark bookmark) {
+        keywords.add(bookmark);
+        titles.add(bookmark);
+    }
+
+    // Returns whether indexed content was removed with the bookmark
+    public synchronized boolean remove(Bookmark bookmark) {
+        keywords.remove(bookmark);
+        titles.remove(bookmark);
+        return text.remove(bookmark.getKey());
+    }
+
+    public synchronized void addContent(String key, List<String> tokens) {
+        text.add(key, tokens);
+    }
+
+    public synchronized List<Bookmark> searchByTags(Collection<String> tags, boolean matchAll) {
+        return keywords.search(tags, matchAll);
+    }
+
+    public synchronized List<Bookmark> searchByTitle(String title) {
+        return titles.search(title);
+    }
+
+    // Content can be indexed before its bookmark is added, or outlive it after a crash,
+    // so only keys of bookmarks that are still indexed are returned
+    public synchronized List<Bookmark> searchByText(String query) {
+        return text.search(query).stream().map(keywords::get).filter(Objects::nonNull).toList();
+    }
+
+    synchronized void clearBookmarks() {
+        keywords.clear();
+        titles.clear();
+    }
+
+    synchronized void writeContent(DataOutputStream output) throws IOException {
+        text.write(output);
+    }
+
+    synchronized void readContent(DataInputStream input) throws IOException {
+        text.read(input);
+    }
+}
@@ -0,0 +1,8 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.services;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Service;
+
+public interface AccessPolicy extends Service {
+    boolean isAdmin(User user);
+}
@@ -6,8 +6,20 @@ import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Group;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface BookmarksService extends Service {
     Bookmark generateBookmark(String url, Group group, boolean shortened, User user) throws InvalidBookmarkException;
 
-    boolean validateUrl(String url) throws InvalidBookmarkException;
+    // Only checks the url syntactically, title, keywords and short url are filled in by enrich
+    Bookmark createPlaceholder(String url, Group group, User user) throws InvalidBookmarkException;
+
+    // Runs in the background and replaces the stored placeholder with the enriched bookmark
+    void enrich(Bookmark placeholder, boolean shortened);
+
+    // Finishes the enrichments submitted so far
+    void shutdown();
+
+    // Completes exceptionally with InvalidBookmarkException when the url cannot be checked
+    CompletableFuture<Boolean> validateUrlAsync(String url);
 }
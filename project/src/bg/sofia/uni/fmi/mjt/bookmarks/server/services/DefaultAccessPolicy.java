@@ -0,0 +1,22 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.services;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
+
+import java.util.Set;
+
+// Admins are named by the server configuration, there is no way to become one through a command
+public class DefaultAccessPolicy implements AccessPolicy {
+
+    private final Set<String> admins;
+
+    public DefaultAccessPolicy(Set<String> admins) {
+        Nullable.throwIfNull(admins);
+        this.admins = Set.copyOf(admins);
+    }
+
+    @Override
+    public boolean isAdmin(User user) {
+        return user != null && admins.contains(user.getUsername());
+    }
+}
@@ -5,25 +5,33 @@ import bg.sofia.uni.fmi.mjt.bookmarks.server.exceptions.InvalidBookmarkException
 import bg.sofia.uni.fmi.mjt.bookmarks.server.exceptions.StopWordsException;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.exceptions.UrlShortenerException;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.external.UrlShortener;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.metrics.DefaultMetricsRegistry;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.metrics.LatencyHistogram;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.metrics.MetricsRegistry;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Group;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.DatabaseContext;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.IdGenerator;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Nullable;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.StemmingAlgo;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Stopwords;
-import org.jsoup.Jsoup;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.datetime.DefaultDateTimeProvider;
 import org.jsoup.nodes.Document;
 
-import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -31,10 +39,52 @@ import java.util.stream.Collectors;
 public class DefaultBookmarksService implements BookmarksService {
     private static final String SPLIT_REGEX = "[\\s\\p{IsPunctuation}]+";
     private static final int MAX_KEYWORDS = 25;
+    private static final int DEFAULT_PARALLELISM = 32;
+    private static final int DEFAULT_REQUESTS_PER_HOST = 5;
+    private static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final int DEFAULT_ENRICHMENT_QUEUE = 256;
+    private static final long DEFAULT_MAX_PAGE_SIZE = 2 * 1024 * 1024;
+    private static final int DEFAULT_CACHE_ENTRIES = 4096;
+    private static final Duration DEFAULT_CACHE_TTL = Duration.ofHours(1);
+    private static final long DEFAULT_CACHE_TEXT_LENGTH = 16 * 1024 * 1024;
+    private static final Duration ENRICHMENT_SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+    private static final String HEAD_METHOD = "HEAD";
+    private static final Set<String> HTTP_SCHEMES = Set.of("http", "https");
+
     private final HttpClient client;
+    private final boolean fullText;
+    private final RequestThrottle throttle;
+    private final Duration requestTimeout;
+    private final PageFetcher fetcher;
+    private final PageCache cache;
+    private final EnrichmentPipeline enrichment;
+    private final LatencyHistogram validationLatencies;
 
     public DefaultBookmarksService(HttpClient client) {
-        this.client = client;
+        this(configure(client));
+    }
+
+    private DefaultBookmarksService(DefaultBookmarksServiceBuilder builder) {
+        this.client = builder.client;
+        this.fullText = builder.fullText;
+        this.throttle = new RequestThrottle(builder.parallelism, builder.requestsPerHost);
+        this.requestTimeout = builder.requestTimeout;
+        this.fetcher = new PageFetcher(client, requestTimeout, builder.maxPageSize,
+            builder.metrics.histogram("http.fetch"));
+        this.cache = new PageCache(builder.cacheEntries, fullText ? builder.cacheTextLength : 0, builder.cacheTtl,
+            new DefaultDateTimeProvider());
+        this.enrichment = new EnrichmentPipeline(fetcher, cache, throttle, fullText, builder.enrichmentQueueCapacity);
+        this.validationLatencies = builder.metrics.histogram("http.validate");
+
+        builder.metrics.gauge("pagecache.hits", () -> cache.statistics().hits());
+        builder.metrics.gauge("pagecache.revalidations", () -> cache.statistics().revalidations());
+        builder.metrics.gauge("pagecache.misses", () -> cache.statistics().misses());
+        builder.metrics.gauge("pagecache.evictions", () -> cache.statistics().evictions());
+        builder.metrics.gauge("pagecache.size", () -> cache.statistics().size());
+    }
+
+    public static DefaultBookmarksServiceBuilder configure(HttpClient client) {
+        return new DefaultBookmarksServiceBuilder(client);
     }
 
     @Override
@@ -42,7 +92,8 @@ public class DefaultBookmarksService implements BookmarksService {
         throws InvalidBookmarkException {
         Nullable.throwIfAnyNull(url, group, user);
 
-        validateUrl(url);
+        var description = describe(url);
+        var page = description.metadata();
 
         String shortenedUrl = "";
 
@@ -55,15 +106,97 @@ public class DefaultBookmarksService implements BookmarksService {
             }
         }
 
-        Document htmlDocument;
+        var bookmark =
+            new Bookmark(IdGenerator.generateId(), url, shortenedUrl, page.title(), page.keywords(), user, group);
+
+        if (fullText) {
+            DIContainer.request(DatabaseContext.class).searchIndex().addContent(bookmark, description.text());
+        }
+
+        return bookmark;
+    }
+
+    public PageCacheStatistics pageCacheStatistics() {
+        return cache.statistics();
+    }
+
+    // With full-text indexing only entries that still hold the page text can be used
+    private Description describe(String url) throws InvalidBookmarkException {
+        URI uri = toUri(url);
+
+        var cached = cache.get(url, fullText);
+        if (cached != null && cached.fresh()) {
+            return new Description(cached.metadata(), cached.text());
+        }
+
+        var page = fetcher.fetch(uri, cached == null ? Map.of() : cached.metadata().conditionalHeaders());
+        if (cached != null && page.notModified()) {
+            page.discard();
+            return new Description(cache.revalidated(url, cached.metadata()), cached.text());
+        }
+
+        Document document = page.parse();
+        String text = document.body().text();
+        var metadata = new PageMetadata(document.title(), extractKeywords(text),
+            page.header(PageMetadata.ETAG_HEADER), page.header(PageMetadata.LAST_MODIFIED_HEADER));
+        cache.put(url, metadata, fullText ? text : null);
+        return new Description(metadata, fullText ? text : null);
+    }
+
+    @Override
+    public Bookmark createPlaceholder(String url, Group group, User user) throws InvalidBookmarkException {
+        Nullable.throwIfAnyNull(url, group, user);
+
+        toUri(url);
+
+        return new Bookmark(IdGenerator.generateId(), url, "", "", List.of(), user, group);
+    }
+
+    @Override
+    public void enrich(Bookmark placeholder, boolean shortened) {
+        enrichment.submit(placeholder, shortened);
+    }
+
+    @Override
+    public void shutdown() {
+        enrichment.shutdown(ENRICHMENT_SHUTDOWN_TIMEOUT);
+    }
+
+    // HEAD first so no body is downloaded; servers that do not support it get a GET with a discarded body
+    @Override
+    public CompletableFuture<Boolean> validateUrlAsync(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new InvalidBookmarkException(e));
+        }
+
+        return throttle.submit(uri.getHost(), () -> send(uri, true))
+            .thenCompose(status -> status == HttpURLConnection.HTTP_BAD_METHOD ||
+                status == HttpURLConnection.HTTP_NOT_IMPLEMENTED
+                ? throttle.submit(uri.getHost(), () -> send(uri, false))
+                : CompletableFuture.completedFuture(status))
+            .thenApply(status -> status != HttpURLConnection.HTTP_NOT_FOUND)
+            .exceptionallyCompose(e -> CompletableFuture.failedFuture(invalidBookmark(e)));
+    }
+
+    private static URI toUri(String url) throws InvalidBookmarkException {
+        URI uri;
         try {
-            htmlDocument = Jsoup.connect(url).get();
-        } catch (IOException e) {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
             throw new InvalidBookmarkException(e);
         }
 
-        var htmlText = htmlDocument.body().text().split(SPLIT_REGEX);
+        if (uri.getHost() == null || !HTTP_SCHEMES.contains(String.valueOf(uri.getScheme()).toLowerCase())) {
+            throw new InvalidBookmarkException(new URISyntaxException(url, "Expected an absolute http(s) url"));
+        }
 
+        return uri;
+    }
+
+    static List<String> extractKeywords(String text) throws InvalidBookmarkException {
         Set<String> stopwords;
         try {
             stopwords = Set.copyOf(Stopwords.list());
@@ -71,8 +204,7 @@ public class DefaultBookmarksService implements BookmarksService {
             throw new InvalidBookmarkException(e);
         }
 
-
-        var tags = Arrays.stream(htmlText)
+        return Arrays.stream(text.split(SPLIT_REGEX))
             .map(String::trim)
             .map(String::toLowerCase)
             .map(StemmingAlgo::suffixStripping)
@@ -84,19 +216,98 @@ public class DefaultBookmarksService implements BookmarksService {
             .map(Map.Entry::getKey)
             .limit(MAX_KEYWORDS)
             .toList();
+    }
 
-        return new Bookmark(IdGenerator.generateId(), url, shortenedUrl, htmlDocument.title(), tags, user, group);
+    private static InvalidBookmarkException invalidBookmark(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return new InvalidBookmarkException(cause instanceof Exception e ? e : new RuntimeException(cause));
     }
 
-    @Override
-    public boolean validateUrl(String url) throws InvalidBookmarkException {
-        try {
-            return
-                client.send(HttpRequest.newBuilder().uri(URI.create(url)).build(), HttpResponse.BodyHandlers.ofString())
-                    .statusCode() !=
-                    HttpURLConnection.HTTP_NOT_FOUND;
-        } catch (Exception e) {
-            throw new InvalidBookmarkException(e);
+    private CompletableFuture<Integer> send(URI uri, boolean head) {
+        var request = HttpRequest.newBuilder(uri).timeout(requestTimeout);
+        if (head) {
+            request.method(HEAD_METHOD, HttpRequest.BodyPublishers.noBody());
+        }
+
+        long start = System.nanoTime();
+        return client.sendAsync(request.build(), HttpResponse.BodyHandlers.discarding())
+            .whenComplete((response, error) -> validationLatencies.recordSince(start))
+            .thenApply(HttpResponse::statusCode);
+    }
+
+    // The text is only there when full-text indexing is enabled
+    private record Description(PageMetadata metadata, String text) {
+    }
+
+    public static class DefaultBookmarksServiceBuilder {
+
+        private final HttpClient client;
+        private boolean fullText;
+        private int parallelism = DEFAULT_PARALLELISM;
+        private int requestsPerHost = DEFAULT_REQUESTS_PER_HOST;
+        private Duration requestTimeout = DEFAULT_REQUEST_TIMEOUT;
+        private int enrichmentQueueCapacity = DEFAULT_ENRICHMENT_QUEUE;
+        private long maxPageSize = DEFAULT_MAX_PAGE_SIZE;
+        private int cacheEntries = DEFAULT_CACHE_ENTRIES;
+        private Duration cacheTtl = DEFAULT_CACHE_TTL;
+        private long cacheTextLength = DEFAULT_CACHE_TEXT_LENGTH;
+        private MetricsRegistry metrics = new DefaultMetricsRegistry();
+
+        private DefaultBookmarksServiceBuilder(HttpClient client) {
+            this.client = client;
+        }
+
+        // The page body is indexed for search --text instead of being thrown away
+        public DefaultBookmarksServiceBuilder enableFullText() {
+            this.fullText = true;
+            return this;
+        }
+
+        public DefaultBookmarksServiceBuilder configureParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public DefaultBookmarksServiceBuilder configureRequestsPerHost(int requestsPerSecond) {
+            this.requestsPerHost = requestsPerSecond;
+            return this;
+        }
+
+        public DefaultBookmarksServiceBuilder configureRequestTimeout(Duration timeout) {
+            this.requestTimeout = timeout;
+            return this;
+        }
+
+        public DefaultBookmarksServiceBuilder configureEnrichmentQueue(int capacity) {
+            this.enrichmentQueueCapacity = capacity;
+            return this;
+        }
+
+        // Longer pages are truncated, the title and the first part of the body are enough for keywords
+        public DefaultBookmarksServiceBuilder configureMaxPageSize(long bytes) {
+            this.maxPageSize = bytes;
+            return this;
+        }
+
+        public DefaultBookmarksServiceBuilder configurePageCache(int maxEntries, Duration ttl) {
+            this.cacheEntries = maxEntries;
+            this.cacheTtl = ttl;
+            return this;
+        }
+
+        // Characters of page text the cache keeps for full-text indexing
+        public DefaultBookmarksServiceBuilder configurePageCacheText(long maxLength) {
+            this.cacheTextLength = maxLength;
+            return this;
+        }
+
+        public DefaultBookmarksServiceBuilder configureMetrics(MetricsRegistry metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        public DefaultBookmarksService build() {
+            return new DefaultBookmarksService(this);
         }
     }
 }
@@ -0,0 +1,308 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.services;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.DIContainer;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.exceptions.InvalidBookmarkException;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.external.UrlShortener;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.Logger;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.DatabaseContext;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.IdGenerator;
+
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+// Fills in placeholder bookmarks in the background: fetch -> parse -> keywords -> shorten.
+// Every stage reads from a bounded queue, so a slow stage blocks the one before it and
+// eventually the add-to callers instead of buffering an unbounded backlog
+public class EnrichmentPipeline {
+
+    private static final int FETCH_WORKERS = 8;
+    private static final int PARSE_WORKERS = 2;
+    private static final int KEYWORD_WORKERS = 2;
+    private static final int SHORTEN_WORKERS = 2;
+    private static final int MAX_FETCH_ATTEMPTS = 3;
+    private static final Duration DEFAULT_RETRY_DELAY = Duration.ofSeconds(2);
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    // Tells a worker to exit, it is queued behind the work already submitted
+    private static final Task STOP = new Task(null, false);
+
+    private final PageFetcher fetcher;
+    private final PageCache cache;
+    private final RequestThrottle throttle;
+    private final boolean fullText;
+    private final Duration retryDelay;
+
+    private final BlockingQueue<Task> fetchQueue;
+    private final BlockingQueue<Task> parseQueue;
+    private final BlockingQueue<Task> keywordQueue;
+    private final BlockingQueue<Task> shortenQueue;
+
+    private List<Workers> stages = List.of();
+
+    private record Workers(BlockingQueue<Task> input, List<Thread> threads) {
+    }
+
+    public EnrichmentPipeline(PageFetcher fetcher, PageCache cache, RequestThrottle throttle, boolean fullText,
+                              int queueCapacity) {
+        this(fetcher, cache, throttle, fullText, queueCapacity, DEFAULT_RETRY_DELAY);
+    }
+
+    // The delay doubles after every failed fetch attempt
+    public EnrichmentPipeline(PageFetcher fetcher, PageCache cache, RequestThrottle throttle, boolean fullText,
+                              int queueCapacity, Duration retryDelay) {
+        this.fetcher = fetcher;
+        this.cache = cache;
+        this.throttle = throttle;
+        this.fullText = fullText;
+        this.retryDelay = retryDelay;
+        this.fetchQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.parseQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.keywordQueue = new ArrayBlockingQueue<>(queueCapacity);
+        this.shortenQueue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    // Blocks while the fetch queue is full
+    public void submit(Bookmark placeholder, boolean shorten) {
+        start();
+
+        try {
+            fetchQueue.put(new Task(placeholder, shorten));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Finishes everything submitted so far, one stage after the other. Work still queued when the timeout
+    // runs out stays as a placeholder in the repository and is picked up if the pipeline is started again.
+    // Returns false in that case
+    public boolean shutdown(Duration timeout) {
+        List<Workers> running;
+        synchronized (this) {
+            running = stages;
+            stages = List.of();
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        for (Workers stage : running) {
+            if (!stop(stage, deadline)) {
+                running.forEach(workers -> workers.threads().forEach(Thread::interrupt));
+                running.forEach(workers -> workers.input().removeIf(task -> task == STOP));
+
+                int pending = fetchQueue.size() + parseQueue.size() + keywordQueue.size() + shortenQueue.size();
+                log().logWarning("Enrichment stopped with " + pending + " bookmarks pending");
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private synchronized void start() {
+        if (!stages.isEmpty()) {
+            return;
+        }
+
+        stages = List.of(
+            startStage("fetch", FETCH_WORKERS, fetchQueue, this::fetch),
+            startStage("parse", PARSE_WORKERS, parseQueue, this::parse),
+            startStage("keywords", KEYWORD_WORKERS, keywordQueue, this::extractKeywords),
+            startStage("shorten", SHORTEN_WORKERS, shortenQueue, this::shortenAndSave));
+    }
+
+    private Workers startStage(String name, int workers, BlockingQueue<Task> input, Stage stage) {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            var thread = new Thread(() -> run(input, stage), "enrich-" + name + "-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+
+        return new Workers(input, threads);
+    }
+
+    private boolean stop(Workers stage, long deadline) {
+        try {
+            for (int i = 0; i < stage.threads().size(); i++) {
+                if (!stage.input().offer(STOP, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    return false;
+                }
+            }
+
+            for (Thread thread : stage.threads()) {
+                thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+                if (thread.isAlive()) {
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        return true;
+    }
+
+    private void run(BlockingQueue<Task> input, Stage stage) {
+        while (!Thread.currentThread().isInterrupted()) {
+            Task task;
+            try {
+                task = input.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (task == STOP) {
+                return;
+            }
+
+            try {
+                var output = stage.process(task);
+                if (output != null) {
+                    output.put(task);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // The placeholder stays as it is, cleanup removes it if the url never becomes reachable
+                String traceId = IdGenerator.generateId();
+                log().logError("Enrichment of bookmark " + task.placeholder.getUrl() + " failed. Trace id: " + traceId);
+                log().logException(e, traceId);
+            }
+        }
+    }
+
+    // Cached pages skip straight to shortening, stale ones are revalidated with a conditional request.
+    // When the text is indexed only entries that still hold it can be used.
+    // The body is read here, so the connection is released before the task waits for a parser
+    private BlockingQueue<Task> fetch(Task task) throws InvalidBookmarkException, InterruptedException {
+        String url = task.placeholder.getUrl();
+        var cached = cache.get(url, fullText);
+        if (cached != null && cached.fresh()) {
+            task.metadata = cached.metadata();
+            task.text = cached.text();
+            return shortenQueue;
+        }
+
+        URI uri = URI.create(url);
+        var headers = cached == null ? Map.<String, String>of() : cached.metadata().conditionalHeaders();
+        var page = fetch(uri, headers);
+
+        if (cached != null && page.notModified()) {
+            page.discard();
+            task.metadata = cache.revalidated(url, cached.metadata());
+            task.text = cached.text();
+            return shortenQueue;
+        }
+
+        task.page = page.buffer();
+        return parseQueue;
+    }
+
+    // Connection failures and 5xx / 429 answers are retried, anything else is returned as it is
+    private PageFetcher.Page fetch(URI uri, Map<String, String> headers)
+        throws InvalidBookmarkException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                var page = throttle.submit(uri.getHost(), () -> fetcher.fetchAsync(uri, headers)).join();
+                if (!isTransient(page.statusCode()) || attempt >= MAX_FETCH_ATTEMPTS) {
+                    return page;
+                }
+
+                page.discard();
+            } catch (CompletionException e) {
+                if (attempt >= MAX_FETCH_ATTEMPTS) {
+                    throw new InvalidBookmarkException(
+                        e.getCause() instanceof Exception cause ? cause : new RuntimeException(e.getCause()));
+                }
+            }
+
+            log().logWarning("Fetching " + uri + " failed, attempt " + attempt + " of " + MAX_FETCH_ATTEMPTS);
+            Thread.sleep(retryDelay.toMillis() << (attempt - 1));
+        }
+    }
+
+    private static boolean isTransient(int status) {
+        return status >= HttpURLConnection.HTTP_INTERNAL_ERROR || status == TOO_MANY_REQUESTS;
+    }
+
+    private BlockingQueue<Task> parse(Task task) throws InvalidBookmarkException {
+        var document = task.page.parse();
+        task.etag = task.page.header(PageMetadata.ETAG_HEADER);
+        task.lastModified = task.page.header(PageMetadata.LAST_MODIFIED_HEADER);
+        task.page = null;
+        task.title = document.title();
+        task.text = document.body().text();
+        return keywordQueue;
+    }
+
+    private BlockingQueue<Task> extractKeywords(Task task) throws InvalidBookmarkException {
+        task.metadata = new PageMetadata(task.title, DefaultBookmarksService.extractKeywords(task.text),
+            task.etag, task.lastModified);
+        cache.put(task.placeholder.getUrl(), task.metadata, fullText ? task.text : null);
+        if (!fullText) {
+            task.text = null;
+        }
+        return shortenQueue;
+    }
+
+    private BlockingQueue<Task> shortenAndSave(Task task) throws Exception {
+        var placeholder = task.placeholder;
+        String shortened = task.shorten ? DIContainer.request(UrlShortener.class).shorten(placeholder.getUrl()) : "";
+
+        var metadata = task.metadata;
+        var bookmark = new Bookmark(placeholder.getKey(), placeholder.getUrl(), shortened, metadata.title(),
+            metadata.keywords(), placeholder.getUser(), placeholder.getGroup());
+
+        var context = DIContainer.request(DatabaseContext.class);
+        synchronized (placeholder.getUser()) {
+            // Removed while it was being enriched
+            if (context.bookmarks().get(placeholder.getKey()).filter(x -> x == placeholder).isEmpty()) {
+                return null;
+            }
+
+            context.bookmarks().add(bookmark);
+        }
+
+        if (fullText && task.text != null) {
+            context.searchIndex().addContent(bookmark, task.text);
+        }
+
+        return null;
+    }
+
+    private Logger log() {
+        return DIContainer.request(Logger.class);
+    }
+
+    // Returns the queue the task moves to, null when it is done
+    @FunctionalInterface
+    private interface Stage {
+        BlockingQueue<Task> process(Task task) throws Exception;
+    }
+
+    private static class Task {
+        private final Bookmark placeholder;
+        private final boolean shorten;
+        private PageFetcher.Page page;
+        private String etag;
+        private String lastModified;
+        private String title;
+        private String text;
+        private PageMetadata metadata;
+
+        private Task(Bookmark placeholder, boolean shorten) {
+            this.placeholder = placeholder;
+            this.shorten = shorten;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.services;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.datetime.DateTimeProvider;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Page metadata by url, shared between users. Entries older than the ttl are not dropped but
+// revalidated: their ETag / Last-Modified go into a conditional request and a 304 renews them.
+// The least recently used entry is evicted once the cache is full.
+// With full-text indexing an entry also keeps the page text, so a hit can still be indexed. The text of all
+// entries together is bounded by maxTextLength characters, least recently used entries go first
+public class PageCache {
+
+    private final int maxEntries;
+    private final long maxTextLength;
+    private final Duration ttl;
+    private final DateTimeProvider dateTimeProvider;
+    private final LinkedHashMap<String, Entry> entries;
+    private long textLength;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public PageCache(int maxEntries, Duration ttl, DateTimeProvider dateTimeProvider) {
+        this(maxEntries, 0, ttl, dateTimeProvider);
+    }
+
+    public PageCache(int maxEntries, long maxTextLength, Duration ttl, DateTimeProvider dateTimeProvider) {
+        this.maxEntries = maxEntries;
+        this.maxTextLength = maxTextLength;
+        this.ttl = ttl;
+        this.dateTimeProvider = dateTimeProvider;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > PageCache.this.maxEntries) {
+                    evictions.increment();
+                    textLength -= eldest.getValue().textLength();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Null when the url was never cached
+    public CachedPage get(String url) {
+        return get(url, false);
+    }
+
+    // With withText an entry that does not hold the page text is treated as missing
+    public CachedPage get(String url, boolean withText) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(url);
+        }
+
+        if (entry == null || (withText && entry.text == null)) {
+            return null;
+        }
+
+        boolean fresh = entry.expiresAt.isAfter(dateTimeProvider.getCurrentTime());
+        if (fresh) {
+            hits.increment();
+        }
+        return new CachedPage(entry.metadata, entry.text, fresh);
+    }
+
+    // The server answered 304 Not Modified for a stale entry, the text it holds is still valid
+    public PageMetadata revalidated(String url, PageMetadata metadata) {
+        revalidations.increment();
+        synchronized (entries) {
+            var entry = entries.get(url);
+            store(url, metadata, entry == null ? null : entry.text);
+        }
+        return metadata;
+    }
+
+    public void put(String url, PageMetadata metadata) {
+        put(url, metadata, null);
+    }
+
+    // Text longer than the whole budget is not kept
+    public void put(String url, PageMetadata metadata, String text) {
+        misses.increment();
+        synchronized (entries) {
+            store(url, metadata, text != null && text.length() <= maxTextLength ? text : null);
+        }
+    }
+
+    public PageCacheStatistics statistics() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+
+        return new PageCacheStatistics(hits.sum(), revalidations.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    // Called while holding the entries lock
+    private void store(String url, PageMetadata metadata, String text) {
+        var entry = new Entry(metadata, text, dateTimeProvider.getCurrentTime().plus(ttl));
+        var previous = entries.put(url, entry);
+        textLength += entry.textLength() - (previous == null ? 0 : previous.textLength());
+
+        var eldest = entries.entrySet().iterator();
+        while (textLength > maxTextLength && eldest.hasNext()) {
+            var evicted = eldest.next().getValue();
+            if (evicted.text != null) {
+                eldest.remove();
+                evictions.increment();
+                textLength -= evicted.textLength();
+            }
+        }
+    }
+
+    // The text is null when it is not cached
+    public record CachedPage(PageMetadata metadata, String text, boolean fresh) {
+    }
+
+    private record Entry(PageMetadata metadata, String text, LocalDateTime expiresAt) {
+        private long textLength() {
+            return text == null ? 0 : text.length();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.services;
+
+public record PageCacheStatistics(long hits, long revalidations, long misses, long evictions, int size) {
+
+    // Revalidated entries count as hits, the page body was not downloaded again
+    public double hitRate() {
+        long requests = hits + revalidations + misses;
+        return requests == 0 ? 0 : (double) (hits + revalidations) / requests;
+    }
+}
@@ -0,0 +1,242 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.services;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.exceptions.InvalidBookmarkException;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.metrics.LatencyHistogram;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+// One GET per page: the response body is streamed straight into the Jsoup parser.
+// Redirects the client did not follow itself are followed here, bodies above the cap are truncated
+public class PageFetcher {
+
+    private static final int MAX_REDIRECTS = 5;
+    private static final String LOCATION_HEADER = "Location";
+    private static final String CONTENT_TYPE_HEADER = "Content-Type";
+    private static final String CHARSET_PARAM = "charset=";
+    private static final String HTML_TYPE = "text/html";
+    private static final String XHTML_TYPE = "application/xhtml+xml";
+
+    private final HttpClient client;
+    private final Duration timeout;
+    private final long maxBytes;
+    private final LatencyHistogram latencies;
+
+    // Each request, redirects included, is timed until its response headers arrive
+    public PageFetcher(HttpClient client, Duration timeout, long maxBytes, LatencyHistogram latencies) {
+        this.client = client;
+        this.timeout = timeout;
+        this.maxBytes = maxBytes;
+        this.latencies = latencies;
+    }
+
+    // The extra headers carry the validators of a conditional request
+    public Page fetch(URI uri, Map<String, String> headers) throws InvalidBookmarkException {
+        try {
+            for (int redirects = 0; ; redirects++) {
+                long start = System.nanoTime();
+                HttpResponse<InputStream> response;
+                try {
+                    response = client.send(request(uri, headers), HttpResponse.BodyHandlers.ofInputStream());
+                } finally {
+                    latencies.recordSince(start);
+                }
+
+                URI location = redirectTarget(uri, response, redirects);
+                if (location == null) {
+                    return new Page(uri, response, response.body());
+                }
+
+                response.body().close();
+                uri = location;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            throw new InvalidBookmarkException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidBookmarkException(e);
+        }
+    }
+
+    public CompletableFuture<Page> fetchAsync(URI uri, Map<String, String> headers) {
+        return fetchAsync(uri, headers, 0);
+    }
+
+    private CompletableFuture<Page> fetchAsync(URI uri, Map<String, String> headers, int redirects) {
+        long start = System.nanoTime();
+        return client.sendAsync(request(uri, headers), HttpResponse.BodyHandlers.ofInputStream())
+            .whenComplete((response, error) -> latencies.recordSince(start))
+            .thenCompose(response -> {
+                URI location = redirectTarget(uri, response, redirects);
+                if (location == null) {
+                    return CompletableFuture.completedFuture(new Page(uri, response, response.body()));
+                }
+
+                closeQuietly(response.body());
+                return fetchAsync(location, headers, redirects + 1);
+            });
+    }
+
+    private HttpRequest request(URI uri, Map<String, String> headers) {
+        var request = HttpRequest.newBuilder(uri).timeout(timeout).GET();
+        headers.forEach(request::header);
+        return request.build();
+    }
+
+    private static URI redirectTarget(URI uri, HttpResponse<?> response, int redirects) {
+        int status = response.statusCode();
+        if (status < HttpURLConnection.HTTP_MULT_CHOICE || status >= HttpURLConnection.HTTP_BAD_REQUEST ||
+            status == HttpURLConnection.HTTP_NOT_MODIFIED || redirects >= MAX_REDIRECTS) {
+            return null;
+        }
+
+        return response.headers().firstValue(LOCATION_HEADER).map(uri::resolve).orElse(null);
+    }
+
+    private static void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            // ignored
+        }
+    }
+
+    public class Page {
+        private final URI uri;
+        private final HttpResponse<InputStream> response;
+        private final InputStream body;
+
+        private Page(URI uri, HttpResponse<InputStream> response, InputStream body) {
+            this.uri = uri;
+            this.response = response;
+            this.body = body;
+        }
+
+        public int statusCode() {
+            return response.statusCode();
+        }
+
+        public boolean notModified() {
+            return response.statusCode() == HttpURLConnection.HTTP_NOT_MODIFIED;
+        }
+
+        public String header(String name) {
+            return response.headers().firstValue(name).orElse(null);
+        }
+
+        // Consumes the body. Error pages and anything but HTML are reported as an invalid bookmark,
+        // so their titles never reach a bookmark or the page cache
+        public Document parse() throws InvalidBookmarkException {
+            try (var limited = new LimitedInputStream(body, maxBytes)) {
+                check();
+                return Jsoup.parse(limited, charset(), uri.toString());
+            } catch (IOException e) {
+                throw new InvalidBookmarkException(e);
+            }
+        }
+
+        // Reads the capped body into memory and releases the connection, the returned copy is parsed later.
+        // Rejects the same pages as parse
+        public Page buffer() throws InvalidBookmarkException {
+            try (var limited = new LimitedInputStream(body, maxBytes)) {
+                check();
+                return new Page(uri, response, new ByteArrayInputStream(limited.readAllBytes()));
+            } catch (IOException e) {
+                throw new InvalidBookmarkException(e);
+            }
+        }
+
+        public void discard() {
+            closeQuietly(body);
+        }
+
+        private void check() throws InvalidBookmarkException {
+            int status = response.statusCode();
+            if ((status < HttpURLConnection.HTTP_OK || status >= HttpURLConnection.HTTP_MULT_CHOICE) &&
+                status != HttpURLConnection.HTTP_NOT_MODIFIED) {
+                throw new InvalidBookmarkException(new IOException("Status " + status + " for " + uri));
+            }
+
+            String type = header(CONTENT_TYPE_HEADER);
+            if (type != null && !isHtml(type)) {
+                throw new InvalidBookmarkException(new IOException("Not an HTML page: " + type + " for " + uri));
+            }
+        }
+
+        private static boolean isHtml(String type) {
+            String mediaType = type.split(";")[0].trim().toLowerCase();
+            return mediaType.equals(HTML_TYPE) || mediaType.equals(XHTML_TYPE);
+        }
+
+        // Null lets Jsoup detect the charset from a BOM or meta tag
+        private String charset() {
+            String type = response.headers().firstValue(CONTENT_TYPE_HEADER).orElse("");
+            int index = type.toLowerCase().indexOf(CHARSET_PARAM);
+            if (index < 0) {
+                return null;
+            }
+
+            String charset = type.substring(index + CHARSET_PARAM.length()).split(";")[0].replace("\"", "").trim();
+            try {
+                return Charset.isSupported(charset) ? charset : null;
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    private static class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        private LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+
+            int result = super.read();
+            if (result >= 0) {
+                remaining--;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+
+            int result = super.read(b, off, (int) Math.min(len, remaining));
+            if (result > 0) {
+                remaining -= result;
+            }
+            return result;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+    }
+}
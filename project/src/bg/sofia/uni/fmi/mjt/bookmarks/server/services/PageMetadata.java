@@ -0,0 +1,30 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.services;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// What a bookmark needs from a page, plus the validators for a conditional refetch.
+// The page text is not part of it: it goes into the search index and the page cache keeps it separately
+public record PageMetadata(String title, List<String> keywords, String etag, String lastModified) {
+
+    static final String ETAG_HEADER = "ETag";
+    static final String LAST_MODIFIED_HEADER = "Last-Modified";
+    private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    private static final String IF_MODIFIED_SINCE_HEADER = "If-Modified-Since";
+
+    public PageMetadata {
+        keywords = List.copyOf(keywords);
+    }
+
+    public Map<String, String> conditionalHeaders() {
+        Map<String, String> headers = new HashMap<>();
+        if (etag != null) {
+            headers.put(IF_NONE_MATCH_HEADER, etag);
+        }
+        if (lastModified != null) {
+            headers.put(IF_MODIFIED_SINCE_HEADER, lastModified);
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,99 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.services;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Caps the number of requests in flight and spaces out the requests to the same host.
+// Nothing blocks: a request that has to wait is scheduled or queued and started by the one that frees its slot.
+public class RequestThrottle {
+
+    private final int maxParallelism;
+    private final long hostIntervalNanos;
+    private final Map<String, Long> nextHostSlot;
+    private final Queue<Runnable> pending;
+    private final ScheduledExecutorService scheduler;
+    private int running;
+
+    public RequestThrottle(int maxParallelism, int requestsPerHostPerSecond) {
+        this.maxParallelism = maxParallelism;
+        this.hostIntervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, requestsPerHostPerSecond);
+        this.nextHostSlot = new ConcurrentHashMap<>();
+        this.pending = new ArrayDeque<>();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "request-throttle");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public <T> CompletableFuture<T> submit(String host, Supplier<CompletableFuture<T>> request) {
+        var result = new CompletableFuture<T>();
+        Runnable start = () -> start(request, result);
+
+        long delay = reserve(host == null ? "" : host);
+        if (delay <= 0) {
+            enqueue(start);
+        } else {
+            scheduler.schedule(() -> enqueue(start), delay, TimeUnit.NANOSECONDS);
+        }
+
+        return result;
+    }
+
+    private long reserve(String host) {
+        long now = System.nanoTime();
+        long slot = nextHostSlot.merge(host, now, (previous, ignored) -> Math.max(previous + hostIntervalNanos, now));
+        return slot - now;
+    }
+
+    private void enqueue(Runnable start) {
+        synchronized (this) {
+            if (running >= maxParallelism) {
+                pending.add(start);
+                return;
+            }
+            running++;
+        }
+
+        start.run();
+    }
+
+    private <T> void start(Supplier<CompletableFuture<T>> request, CompletableFuture<T> result) {
+        CompletableFuture<T> response;
+        try {
+            response = request.get();
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+
+        response.whenComplete((value, error) -> {
+            release();
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+
+    private void release() {
+        Runnable next;
+        synchronized (this) {
+            next = pending.poll();
+            if (next == null) {
+                running--;
+            }
+        }
+
+        if (next != null) {
+            next.run();
+        }
+    }
+}
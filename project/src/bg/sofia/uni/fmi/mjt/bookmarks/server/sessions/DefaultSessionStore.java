@@ -3,15 +3,15 @@ package bg.sofia.uni.fmi.mjt.bookmarks.server.sessions;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
 
 import java.nio.channels.SocketChannel;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DefaultSessionStore implements SessionStore {
 
     private final Map<SocketChannel, User> sessions;
 
     public DefaultSessionStore() {
-        sessions = new HashMap<>();
+        sessions = new ConcurrentHashMap<>();
     }
 
     @Override
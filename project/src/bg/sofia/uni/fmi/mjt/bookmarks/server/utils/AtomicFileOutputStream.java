@@ -0,0 +1,73 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Writes go to a temporary sibling file; commit() fsyncs it and moves it over the target in one step.
+// Closing without a commit discards the temporary file and leaves the target untouched.
+public class AtomicFileOutputStream extends OutputStream {
+
+    private static final String TEMP_EXTENSION = ".tmp";
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private boolean committed;
+
+    public AtomicFileOutputStream(Path target) throws IOException {
+        this.target = target.toAbsolutePath();
+        this.temp = this.target.resolveSibling(this.target.getFileName() + TEMP_EXTENSION);
+
+        Files.createDirectories(this.target.getParent());
+        this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    public void commit() throws IOException {
+        channel.force(true);
+        channel.close();
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+
+        syncDirectory();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (committed) {
+            return;
+        }
+
+        channel.close();
+        Files.deleteIfExists(temp);
+    }
+
+    // Makes the rename itself durable; not supported on every platform
+    private void syncDirectory() {
+        try (var directory = FileChannel.open(target.getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // ignored
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.utils;
+
+public class Base62 {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = ALPHABET.length();
+
+    public static String encode(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Only non-negative values can be encoded.");
+        }
+
+        var result = new StringBuilder();
+        do {
+            result.append(ALPHABET.charAt((int) (value % BASE)));
+            value /= BASE;
+        } while (value > 0);
+
+        return result.reverse().toString();
+    }
+
+    public static long decode(String value) {
+        long result = 0;
+        for (int i = 0; i < value.length(); i++) {
+            int digit = ALPHABET.indexOf(value.charAt(i));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid base62 character: " + value.charAt(i));
+            }
+            result = Math.multiplyExact(result, BASE) + digit;
+        }
+
+        return result;
+    }
+}
@@ -1,14 +1,14 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.server.utils;
 
-import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class IdGenerator {
     private static final Set<String> IDS;
 
     static {
-        IDS = new HashSet<>();
+        IDS = ConcurrentHashMap.newKeySet();
     }
 
     public static String generateId() {
@@ -0,0 +1,112 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Group;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.Entity;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize.binary.BinaryCodec;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize.binary.BinaryReader;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize.binary.BinaryWriter;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize.binary.BookmarkCodec;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize.binary.GroupCodec;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize.binary.StringCodec;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize.binary.UserCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public class BinarySerializer implements Serializer {
+
+    private static final byte[] MAGIC = {'B', 'M', 'K', 1};
+
+    private final Map<Type, BinaryCodec<?>> codecs;
+
+    public BinarySerializer() {
+        codecs = new HashMap<>();
+
+        codecs.put(String.class, new StringCodec());
+        codecs.put(User.class, new UserCodec());
+        codecs.put(Group.class, new GroupCodec());
+        codecs.put(Bookmark.class, new BookmarkCodec());
+    }
+
+    @Override
+    public <T> String serialize(T object) {
+        return serialize(object, object.getClass());
+    }
+
+    // The string form is only for callers that need text, records are stored through serializeBytes
+    @Override
+    public <T> String serialize(T object, Type type) {
+        return Base64.getEncoder().encodeToString(serializeBytes(object, type));
+    }
+
+    @Override
+    public <T> T deserialize(String object, Type type) {
+        return deserializeBytes(Base64.getDecoder().decode(object), type);
+    }
+
+    @Override
+    public <T> byte[] serializeBytes(T object, Type type) {
+        var writer = new BinaryWriter();
+        this.<T>codec(type).write(object, writer);
+
+        return writer.toByteArray();
+    }
+
+    @Override
+    public <T> T deserializeBytes(byte[] data, Type type) {
+        return this.<T>codec(type).read(new BinaryReader().wrap(data));
+    }
+
+    @Override
+    public <T extends Entity<?>> void serializeEntries(OutputStream output, Collection<T> values, Type valueType)
+        throws IOException {
+        BinaryCodec<T> codec = codec(valueType);
+        var writer = new BinaryWriter();
+
+        output.write(MAGIC);
+        for (T value : values) {
+            codec.write(value, writer);
+            writer.flushRecord(output);
+        }
+        output.flush();
+    }
+
+    @Override
+    public <T> void deserializeEntries(InputStream input, Type valueType, Consumer<T> consumer) throws IOException {
+        BinaryCodec<T> codec = codec(valueType);
+
+        byte[] header = input.readNBytes(MAGIC.length);
+        if (header.length == 0) {
+            // empty file
+            return;
+        }
+        if (!Arrays.equals(header, MAGIC)) {
+            throw new IOException("Not a binary repository file.");
+        }
+
+        var reader = new BinaryReader();
+        while (reader.nextRecord(input)) {
+            consumer.accept(codec.read(reader));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> BinaryCodec<T> codec(Type type) {
+        var codec = (BinaryCodec<T>) codecs.get(type);
+        if (codec == null) {
+            throw new IllegalArgumentException("No binary codec registered for " + type.getTypeName());
+        }
+
+        return codec;
+    }
+}
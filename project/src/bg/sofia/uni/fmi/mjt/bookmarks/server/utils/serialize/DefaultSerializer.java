@@ -3,6 +3,7 @@ package bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Group;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.Entity;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Service;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -12,8 +13,20 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.function.Consumer;
 
 public class DefaultSerializer implements Serializer {
     private final Gson gson;
@@ -42,4 +55,39 @@ public class DefaultSerializer implements Serializer {
     public <T> T deserialize(String object, Type type) {
         return gson.fromJson(object, type);
     }
+
+    @Override
+    public <T extends Entity<?>> void serializeEntries(OutputStream output, Collection<T> values, Type valueType)
+        throws IOException {
+        var jsonWriter = new JsonWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+
+        jsonWriter.beginObject();
+        for (T value : values) {
+            jsonWriter.name(String.valueOf(value.getKey()));
+            gson.toJson(value, valueType, jsonWriter);
+        }
+        jsonWriter.endObject();
+        jsonWriter.flush();
+    }
+
+    @Override
+    public <T> void deserializeEntries(InputStream input, Type valueType, Consumer<T> consumer) throws IOException {
+        var jsonReader = new JsonReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+
+        try {
+            if (jsonReader.peek() == JsonToken.END_DOCUMENT) {
+                return;
+            }
+        } catch (EOFException e) {
+            // empty file
+            return;
+        }
+
+        jsonReader.beginObject();
+        while (jsonReader.hasNext()) {
+            jsonReader.nextName();
+            consumer.accept(gson.fromJson(jsonReader, valueType));
+        }
+        jsonReader.endObject();
+    }
 }
@@ -1,8 +1,15 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize;
 
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.Entity;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.function.Consumer;
 
 public interface Serializer extends Service {
     <T> String serialize(T object);
@@ -10,4 +17,18 @@ public interface Serializer extends Service {
     <T> String serialize(T object, Type type);
 
     <T> T deserialize(String object, Type type);
+
+    // Record level form used by the journal and the mapped files, text formats store their UTF-8 encoding
+    default <T> byte[] serializeBytes(T object, Type type) {
+        return serialize(object, type).getBytes(StandardCharsets.UTF_8);
+    }
+
+    default <T> T deserializeBytes(byte[] data, Type type) {
+        return deserialize(new String(data, StandardCharsets.UTF_8), type);
+    }
+
+    <T extends Entity<?>> void serializeEntries(OutputStream output, Collection<T> values, Type valueType)
+        throws IOException;
+
+    <T> void deserializeEntries(InputStream input, Type valueType, Consumer<T> consumer) throws IOException;
 }
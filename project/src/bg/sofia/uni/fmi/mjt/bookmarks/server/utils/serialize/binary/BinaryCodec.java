@@ -0,0 +1,7 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize.binary;
+
+public interface BinaryCodec<T> {
+    void write(T value, BinaryWriter writer);
+
+    T read(BinaryReader reader);
+}
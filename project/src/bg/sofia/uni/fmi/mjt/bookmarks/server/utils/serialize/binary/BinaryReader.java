@@ -0,0 +1,102 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize.binary;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class BinaryReader {
+
+    private final List<String> dictionary;
+    private ByteBuffer record;
+
+    public BinaryReader() {
+        this.dictionary = new ArrayList<>();
+        this.record = ByteBuffer.allocate(0);
+    }
+
+    public BinaryReader wrap(byte[] bytes) {
+        this.record = ByteBuffer.wrap(bytes);
+        return this;
+    }
+
+    public boolean nextRecord(InputStream input) throws IOException {
+        int first = input.read();
+        if (first == -1) {
+            return false;
+        }
+
+        int length = first & 0x7F;
+        int shift = 7;
+        int current = first;
+        while ((current & 0x80) != 0) {
+            current = input.read();
+            if (current == -1) {
+                throw new EOFException("Unexpected end of record length.");
+            }
+            length |= (current & 0x7F) << shift;
+            shift += 7;
+        }
+
+        wrap(input.readNBytes(length));
+        if (record.remaining() != length) {
+            throw new EOFException("Unexpected end of record.");
+        }
+
+        return true;
+    }
+
+    public int readByte() {
+        return record.get() & 0xFF;
+    }
+
+    public long readLong() {
+        return record.getLong();
+    }
+
+    public int readVarInt() {
+        int value = 0;
+        int shift = 0;
+        int current;
+        do {
+            current = record.get();
+            value |= (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+
+        return value;
+    }
+
+    public String readText() {
+        int length = readVarInt();
+        String value = new String(record.array(), record.arrayOffset() + record.position(), length,
+            StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return value;
+    }
+
+    public String readString() {
+        int index = readVarInt();
+        if (index != 0) {
+            return dictionary.get(index - 1);
+        }
+
+        String value = readText();
+        if (dictionary.size() < BinaryWriter.MAX_DICTIONARY_SIZE) {
+            dictionary.add(value);
+        }
+        return value;
+    }
+
+    public String readId() {
+        if (readByte() == 0) {
+            return readText();
+        }
+
+        return new UUID(readLong(), readLong()).toString();
+    }
+}
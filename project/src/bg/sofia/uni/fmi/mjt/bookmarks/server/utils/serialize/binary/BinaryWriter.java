@@ -0,0 +1,101 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize.binary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+public class BinaryWriter {
+
+    static final int MAX_DICTIONARY_SIZE = 1 << 20;
+
+    private final ByteArrayOutputStream record;
+    private final Map<String, Integer> dictionary;
+
+    public BinaryWriter() {
+        this.record = new ByteArrayOutputStream();
+        this.dictionary = new HashMap<>();
+    }
+
+    public void writeByte(int value) {
+        record.write(value);
+    }
+
+    public void writeLong(long value) {
+        for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+            record.write((int) (value >>> shift));
+        }
+    }
+
+    public void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            record.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        record.write(value);
+    }
+
+    public void writeText(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        record.writeBytes(bytes);
+    }
+
+    // Strings that repeat across records (keywords, group names, referenced ids) are written once
+    // and afterwards referenced by their position in the dictionary; 0 marks an inline literal
+    public void writeString(String value) {
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            writeVarInt(index + 1);
+            return;
+        }
+
+        writeVarInt(0);
+        writeText(value);
+        if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+            dictionary.put(value, dictionary.size());
+        }
+    }
+
+    public void writeId(String id) {
+        UUID uuid = parseUuid(id);
+        if (uuid == null) {
+            writeByte(0);
+            writeText(id);
+            return;
+        }
+
+        writeByte(1);
+        writeLong(uuid.getMostSignificantBits());
+        writeLong(uuid.getLeastSignificantBits());
+    }
+
+
+    public byte[] toByteArray() {
+        return record.toByteArray();
+    }
+
+    public void flushRecord(OutputStream output) throws IOException {
+        int length = record.size();
+        while ((length & ~0x7F) != 0) {
+            output.write((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        output.write(length);
+
+        record.writeTo(output);
+        record.reset();
+    }
+
+    private static UUID parseUuid(String id) {
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
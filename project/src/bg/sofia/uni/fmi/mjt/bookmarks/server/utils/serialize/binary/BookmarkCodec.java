@@ -0,0 +1,53 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize.binary;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.DIContainer;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.DatabaseContext;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.IdGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookmarkCodec implements BinaryCodec<Bookmark> {
+
+    @Override
+    public void write(Bookmark bookmark, BinaryWriter writer) {
+        writer.writeId(bookmark.getKey());
+        writer.writeString(bookmark.getUser().getKey());
+        writer.writeString(bookmark.getGroup().getKey());
+        writer.writeText(bookmark.getUrl());
+        writer.writeText(bookmark.getShortened());
+        writer.writeText(bookmark.getTitle());
+
+        writer.writeVarInt(bookmark.getKeywords().size());
+        bookmark.getKeywords().forEach(writer::writeString);
+    }
+
+    @Override
+    public Bookmark read(BinaryReader reader) {
+        String id = reader.readId();
+        String userId = reader.readString();
+        String groupId = reader.readString();
+        IdGenerator.addUsedId(id);
+
+        String url = reader.readText();
+        String shortened = reader.readText();
+        String title = reader.readText();
+
+        int keywordsCount = reader.readVarInt();
+        List<String> keywords = new ArrayList<>(keywordsCount);
+        for (int i = 0; i < keywordsCount; i++) {
+            keywords.add(reader.readString());
+        }
+
+        var user = DIContainer.request(DatabaseContext.class).users().get(userId).orElseThrow();
+        var group = DIContainer.request(DatabaseContext.class).groups().get(groupId).orElseThrow();
+
+        var bookmark = new Bookmark(id, url, shortened, title, keywords, user, group);
+
+        group.bookmarksSynchronizer().add(bookmark);
+        user.bookmarksSynchronizer().add(bookmark);
+
+        return bookmark;
+    }
+}
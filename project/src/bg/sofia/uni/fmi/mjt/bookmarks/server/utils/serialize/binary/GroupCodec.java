@@ -0,0 +1,30 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize.binary;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.DIContainer;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Group;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.DatabaseContext;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.IdGenerator;
+
+public class GroupCodec implements BinaryCodec<Group> {
+
+    @Override
+    public void write(Group group, BinaryWriter writer) {
+        writer.writeId(group.getKey());
+        writer.writeString(group.getUser().getKey());
+        writer.writeString(group.getName());
+    }
+
+    @Override
+    public Group read(BinaryReader reader) {
+        String id = reader.readId();
+        String userId = reader.readString();
+        IdGenerator.addUsedId(id);
+
+        var user = DIContainer.request(DatabaseContext.class).users().get(userId).orElseThrow();
+        var group = new Group(id, reader.readString(), user);
+
+        user.groupsSynchronizer().add(group);
+
+        return group;
+    }
+}
@@ -0,0 +1,14 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize.binary;
+
+public class StringCodec implements BinaryCodec<String> {
+
+    @Override
+    public void write(String value, BinaryWriter writer) {
+        writer.writeText(value);
+    }
+
+    @Override
+    public String read(BinaryReader reader) {
+        return reader.readText();
+    }
+}
@@ -0,0 +1,22 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize.binary;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.IdGenerator;
+
+public class UserCodec implements BinaryCodec<User> {
+
+    @Override
+    public void write(User user, BinaryWriter writer) {
+        writer.writeId(user.getKey());
+        writer.writeText(user.getUsername());
+        writer.writeText(user.getPassword());
+    }
+
+    @Override
+    public User read(BinaryReader reader) {
+        String id = reader.readId();
+        IdGenerator.addUsedId(id);
+
+        return new User(id, reader.readText(), reader.readText());
+    }
+}
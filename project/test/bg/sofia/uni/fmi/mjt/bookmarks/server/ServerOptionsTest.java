@@ -25,6 +25,8 @@ public class ServerOptionsTest {
             .addSessionStore(sessionStore)
             .setHost("host")
             .setBufferSize(1024)
+            .setSelectorThreads(4)
+            .setWorkerThreads(16)
             .addService(UrlShortener.class, service)
             .build();
 
@@ -34,5 +36,7 @@ public class ServerOptionsTest {
         assertEquals("host",options.host(),"invalid option saved.");
         assertEquals(8080,options.port(),"invalid option saved.");
         assertEquals(1024,options.bufferSize(),"invalid option saved.");
+        assertEquals(4,options.selectorThreads(),"invalid option saved.");
+        assertEquals(16,options.workerThreads(),"invalid option saved.");
     }
 }
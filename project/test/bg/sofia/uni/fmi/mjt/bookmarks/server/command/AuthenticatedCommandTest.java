@@ -5,11 +5,13 @@ import bg.sofia.uni.fmi.mjt.bookmarks.server.DIContainer;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.exceptions.InvalidBookmarkException;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.external.UrlShortener;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.Logger;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.metrics.MetricsRegistry;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Group;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.DatabaseContext;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.Repository;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.services.AccessPolicy;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.services.BookmarksService;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.sessions.Session;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.sessions.SessionStore;
@@ -17,9 +19,11 @@ import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.hasher.PasswordHasher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -47,6 +51,8 @@ public class AuthenticatedCommandTest {
     private final PasswordHasher passwordHasher = mock(PasswordHasher.class);
     private final UrlShortener urlShortener = mock(UrlShortener.class);
     private final BookmarksService bookmarksService = mock(BookmarksService.class);
+    private final MetricsRegistry metrics = mock(MetricsRegistry.class);
+    private final AccessPolicy accessPolicy = mock(AccessPolicy.class);
 
 
     private static final String NAME = "name";
@@ -65,6 +71,8 @@ public class AuthenticatedCommandTest {
         DIContainer.register(PasswordHasher.class, passwordHasher);
         DIContainer.register(UrlShortener.class, urlShortener);
         DIContainer.register(BookmarksService.class, bookmarksService);
+        DIContainer.register(MetricsRegistry.class, metrics);
+        DIContainer.register(AccessPolicy.class, accessPolicy);
     }
 
     @Test
@@ -81,12 +89,13 @@ public class AuthenticatedCommandTest {
     void testAddToCommandSuccessful() throws InvalidBookmarkException {
         when(user.getGroups()).thenReturn(List.of(group));
         when(user.getBookmarks()).thenReturn(new ArrayList<>());
-        when(bookmarksService.generateBookmark(any(), any(), anyBoolean(), any())).thenReturn(bookmark);
+        when(bookmarksService.createPlaceholder(any(), any(), any())).thenReturn(bookmark);
 
         var result = executor.execute("add-to " + NAME + " url", session);
 
         verify(bookmarkRepository, times(1)).add(any());
-        verify(bookmarksService, times(1)).generateBookmark(any(), any(), anyBoolean(), any());
+        verify(bookmarksService, times(1)).createPlaceholder(any(), any(), any());
+        verify(bookmarksService, times(1)).enrich(bookmark, false);
         verify(logger, times(1)).logInfo(any());
         assertEquals(ResponseStatus.OK, result.status(), "Invalid status");
     }
@@ -94,12 +103,12 @@ public class AuthenticatedCommandTest {
     @Test
     void testAddToCommandNoGroup() throws InvalidBookmarkException {
         when(user.getGroups()).thenReturn(List.of(group));
-        when(bookmarksService.generateBookmark(any(), any(), anyBoolean(), any())).thenReturn(bookmark);
+        when(bookmarksService.createPlaceholder(any(), any(), any())).thenReturn(bookmark);
 
         var result = executor.execute("add-to nonexisitinggroup url", session);
 
         verify(bookmarkRepository, times(0)).add(any());
-        verify(bookmarksService, times(0)).generateBookmark(any(), any(), anyBoolean(), any());
+        verify(bookmarksService, times(0)).createPlaceholder(any(), any(), any());
         verify(logger, times(1)).logInfo(any());
         assertEquals(ResponseStatus.ERROR, result.status(), "Invalid status");
     }
@@ -112,7 +121,7 @@ public class AuthenticatedCommandTest {
         var result = executor.execute("add-to " + NAME + " " + URL, session);
 
         verify(bookmarkRepository, times(0)).add(any());
-        verify(bookmarksService, times(0)).generateBookmark(any(), any(), anyBoolean(), any());
+        verify(bookmarksService, times(0)).createPlaceholder(any(), any(), any());
         verify(logger, times(1)).logInfo(any());
         assertEquals(ResponseStatus.ERROR, result.status(), "Invalid status");
     }
@@ -121,13 +130,14 @@ public class AuthenticatedCommandTest {
     void testAddToCommandError() throws InvalidBookmarkException {
         when(user.getGroups()).thenReturn(List.of(group));
         when(user.getBookmarks()).thenReturn(new ArrayList<>());
-        when(bookmarksService.generateBookmark(any(), any(), anyBoolean(), any())).thenThrow(
+        when(bookmarksService.createPlaceholder(any(), any(), any())).thenThrow(
             InvalidBookmarkException.class);
 
         var result = executor.execute("add-to " + NAME + " url", session);
 
         verify(bookmarkRepository, times(0)).add(any());
-        verify(bookmarksService, times(1)).generateBookmark(any(), any(), anyBoolean(), any());
+        verify(bookmarksService, times(1)).createPlaceholder(any(), any(), any());
+        verify(bookmarksService, times(0)).enrich(any(), anyBoolean());
         verify(logger, times(1)).logError(any());
         assertEquals(ResponseStatus.ERROR, result.status(), "Invalid status");
     }
@@ -136,7 +146,7 @@ public class AuthenticatedCommandTest {
     void testCleanupCommandSuccessful() throws InvalidBookmarkException {
         when(user.getGroups()).thenReturn(List.of(group));
         when(user.getBookmarks()).thenReturn(List.of(bookmark));
-        when(bookmarksService.validateUrl(any())).thenReturn(false);
+        when(bookmarksService.validateUrlAsync(any())).thenReturn(CompletableFuture.completedFuture(false));
 
         var result = executor.execute("cleanup", session);
 
@@ -150,7 +160,8 @@ public class AuthenticatedCommandTest {
     void testCleanupCommandSuccessfulWithError() throws InvalidBookmarkException {
         when(user.getGroups()).thenReturn(List.of(group));
         when(user.getBookmarks()).thenReturn(List.of(bookmark));
-        when(bookmarksService.validateUrl(any())).thenThrow(InvalidBookmarkException.class);
+        when(bookmarksService.validateUrlAsync(any())).thenReturn(
+            CompletableFuture.failedFuture(new InvalidBookmarkException(new IOException())));
 
         var result = executor.execute("cleanup", session);
 
@@ -163,7 +174,6 @@ public class AuthenticatedCommandTest {
     void testImportChromeCommandSuccessful() throws InvalidBookmarkException {
         when(user.getGroups()).thenReturn(List.of(group));
         when(user.getBookmarks()).thenReturn(List.of(bookmark));
-        when(bookmarksService.validateUrl(any())).thenReturn(false);
 
         var result = executor.execute("import-from-chrome url", session);
 
@@ -196,4 +206,27 @@ public class AuthenticatedCommandTest {
         verify(logger, times(1)).logInfo(any());
         assertEquals(ResponseStatus.ERROR, result.status(), "Invalid status");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testStatsCommandAdmin() {
+        when(accessPolicy.isAdmin(user)).thenReturn(true);
+        when(metrics.report()).thenReturn("report");
+
+        var result = executor.execute("stats", session);
+
+        verify(logger, times(1)).logInfo(any());
+        assertEquals(ResponseStatus.OK, result.status(), "Invalid status");
+        assertEquals("report", result.data(), "Admin should receive the metrics report.");
+    }
+
+    @Test
+    void testStatsCommandNotAdmin() {
+        when(accessPolicy.isAdmin(user)).thenReturn(false);
+
+        var result = executor.execute("stats", session);
+
+        verify(metrics, times(0)).report();
+        verify(logger, times(1)).logInfo(any());
+        assertEquals(ResponseStatus.ERROR, result.status(), "Only admins should see the statistics.");
+    }
+}
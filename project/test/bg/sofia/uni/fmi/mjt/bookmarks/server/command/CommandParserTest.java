@@ -161,6 +161,24 @@ public class CommandParserTest {
         assertEquals(CommandType.SEARCH, cmd.getType(), "Should map command to Search cmd.");
     }
 
+    @Test
+    void testParseSearchAllTagsCommand() {
+        Command cmd = CommandParser.parse("search --tags --all tag another");
+        assertEquals(CommandType.SEARCH, cmd.getType(), "Should map command to Search cmd.");
+    }
+
+    @Test
+    void testParseInvalidSearchAllTagsCommand() {
+        Command cmd = CommandParser.parse("search --tags --all");
+        assertEquals(CommandType.UNKNOWN, cmd.getType(), "Should map invalid command to Unknown cmd.");
+    }
+
+    @Test
+    void testParseSearchTextCommand() {
+        Command cmd = CommandParser.parse("search --text \"quick brown\" -fox");
+        assertEquals(CommandType.SEARCH, cmd.getType(), "Should map command to Search cmd.");
+    }
+
     @Test
     void testParseInvalidSearchCommand() {
         Command cmd = CommandParser.parse("search   ");
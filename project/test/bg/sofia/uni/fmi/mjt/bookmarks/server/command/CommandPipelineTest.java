@@ -0,0 +1,100 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.command;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.contracts.ResponseStatus;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.Logger;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.DatabaseContext;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.sessions.Session;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.sessions.SessionStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CommandPipelineTest {
+
+    private final SessionStore sessionStore = mock(SessionStore.class);
+    private final DatabaseContext context = mock(DatabaseContext.class);
+    private final Logger logger = mock(Logger.class);
+    private final Session session = new Session(mock(SocketChannel.class), null);
+    private final CommandExecutor executor = CommandExecutor.configure(sessionStore, context, logger);
+    private final ExecutorService workers = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        workers.shutdownNow();
+    }
+
+    @Test
+    void testResponsesDeliveredInRequestOrder() throws InterruptedException {
+        List<String> commands = List.of("help", "logout", "help", "help", "logout", "unknown-cmd", "help");
+        List<ResponseStatus> delivered = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(commands.size());
+
+        CommandPipeline pipeline = new CommandPipeline(executor, workers, response -> {
+            delivered.add(response.status());
+            latch.countDown();
+        });
+
+        commands.forEach(cmd -> pipeline.submit(cmd, session));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "All responses should be delivered.");
+        assertEquals(
+            List.of(ResponseStatus.OK, ResponseStatus.ERROR, ResponseStatus.OK, ResponseStatus.OK,
+                ResponseStatus.ERROR, ResponseStatus.ERROR, ResponseStatus.OK),
+            delivered,
+            "Responses should be delivered in request order.");
+    }
+
+    @Test
+    void testFailedCommandDoesNotBlockConnection() throws InterruptedException {
+        when(sessionStore.hasSession(any())).thenThrow(new StackOverflowError()).thenReturn(false);
+        List<ResponseStatus> delivered = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(3);
+
+        CommandPipeline pipeline = new CommandPipeline(executor, workers, response -> {
+            delivered.add(response.status());
+            latch.countDown();
+        });
+
+        List.of("logout", "help", "logout").forEach(cmd -> pipeline.submit(cmd, session));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS), "Responses after a failed command should be delivered.");
+        assertEquals(List.of(ResponseStatus.ERROR, ResponseStatus.OK, ResponseStatus.ERROR), delivered,
+            "Failed command should be answered with an error.");
+        verify(logger, times(1)).logError(any());
+    }
+
+    @Test
+    void testExecuteAsync() {
+        var response = executor.executeAsync("help", session, workers).join();
+        assertEquals(ResponseStatus.OK, response.status(), "Invalid status");
+    }
+
+    @Test
+    void testRejectedCommandAnsweredBusy() {
+        Executor full = runnable -> {
+            throw new RejectedExecutionException();
+        };
+
+        var response = executor.executeAsync("help", session, full).join();
+
+        assertEquals(ResponseStatus.ERROR, response.status(), "Rejected command should fail.");
+        assertTrue(response.data().contains("busy"), "Client should be told the server is busy.");
+    }
+}
@@ -61,7 +61,7 @@ public class UnauthenticatedCommandTest {
     @Test
     void testLoginCommandSuccessful() throws PasswordHasherException {
         when(sessionStore.hasSession(session)).thenReturn(false);
-        when(userRepository.find(any())).thenReturn(Optional.of(user));
+        when(userRepository.findBy(any(), any())).thenReturn(Optional.of(user));
         when(passwordHasher.verify(any(), any())).thenReturn(true);
 
         var result = executor.execute("login username password", session);
@@ -75,7 +75,7 @@ public class UnauthenticatedCommandTest {
     @Test
     void testLoginCommandNoUser() throws PasswordHasherException {
         when(sessionStore.hasSession(session)).thenReturn(false);
-        when(userRepository.find(any())).thenReturn(Optional.empty());
+        when(userRepository.findBy(any(), any())).thenReturn(Optional.empty());
 
         var result = executor.execute("login username password", session);
 
@@ -101,7 +101,7 @@ public class UnauthenticatedCommandTest {
     @Test
     void testLoginCommandInvalidPassword() throws PasswordHasherException {
         when(sessionStore.hasSession(session)).thenReturn(false);
-        when(userRepository.find(any())).thenReturn(Optional.of(user));
+        when(userRepository.findBy(any(), any())).thenReturn(Optional.of(user));
         when(passwordHasher.verify(any(), any())).thenReturn(false);
 
         var result = executor.execute("login username password", session);
@@ -115,7 +115,7 @@ public class UnauthenticatedCommandTest {
     @Test
     void testLoginCommandHasherException() throws PasswordHasherException {
         when(sessionStore.hasSession(session)).thenReturn(false);
-        when(userRepository.find(any())).thenReturn(Optional.of(user));
+        when(userRepository.findBy(any(), any())).thenReturn(Optional.of(user));
         when(passwordHasher.verify(any(), any())).thenThrow(PasswordHasherException.class);
 
         var result = executor.execute("login username password", session);
@@ -154,13 +154,14 @@ public class UnauthenticatedCommandTest {
     @Test
     void testRegisterCommandSuccessful() throws PasswordHasherException {
         when(sessionStore.hasSession(session)).thenReturn(false);
-        when(userRepository.any(any())).thenReturn(false);
+        when(userRepository.findBy(any(), any())).thenReturn(Optional.empty());
         when(passwordHasher.hash(any())).thenReturn("hashedpass");
+        when(userRepository.addIfAbsent(any(), any(), any())).thenReturn(true);
 
         var result = executor.execute("register username Abcdef1.", session);
 
         verify(sessionStore, times(1)).register(any());
-        verify(userRepository, times(1)).add(any());
+        verify(userRepository, times(1)).addIfAbsent(any(), any(), any());
         verify(passwordHasher, times(1)).hash(any());
         verify(logger, times(1)).logInfo(any());
         assertEquals(ResponseStatus.OK, result.status(), "Invalid status");
@@ -173,7 +174,7 @@ public class UnauthenticatedCommandTest {
         var result = executor.execute("register username Abcdef1.", session);
 
         verify(sessionStore, times(0)).register(any());
-        verify(userRepository, times(0)).add(any());
+        verify(userRepository, times(0)).addIfAbsent(any(), any(), any());
         verify(passwordHasher, times(0)).hash(any());
         verify(logger, times(1)).logInfo(any());
         assertEquals(ResponseStatus.ERROR, result.status(), "Invalid status");
@@ -182,13 +183,13 @@ public class UnauthenticatedCommandTest {
     @Test
     void testRegisterCommandUserExists() throws PasswordHasherException {
         when(sessionStore.hasSession(session)).thenReturn(false);
-        when(userRepository.any(any())).thenReturn(true);
+        when(userRepository.findBy(any(), any())).thenReturn(Optional.of(user));
         when(passwordHasher.hash(any())).thenReturn("hashedpass");
 
         var result = executor.execute("register username Abcdef1.", session);
 
         verify(sessionStore, times(0)).register(any());
-        verify(userRepository, times(0)).add(any());
+        verify(userRepository, times(0)).addIfAbsent(any(), any(), any());
         verify(passwordHasher, times(0)).hash(any());
         verify(logger, times(1)).logInfo(any());
         assertEquals(ResponseStatus.ERROR, result.status(), "Invalid status");
@@ -197,13 +198,13 @@ public class UnauthenticatedCommandTest {
     @Test
     void testRegisterCommandInvalidPassword() throws PasswordHasherException {
         when(sessionStore.hasSession(session)).thenReturn(false);
-        when(userRepository.any(any())).thenReturn(true);
+        when(userRepository.findBy(any(), any())).thenReturn(Optional.of(user));
         when(passwordHasher.hash(any())).thenReturn("hashedpass");
 
         var result = executor.execute("register username invalidPassword", session);
 
         verify(sessionStore, times(0)).register(any());
-        verify(userRepository, times(0)).add(any());
+        verify(userRepository, times(0)).addIfAbsent(any(), any(), any());
         verify(passwordHasher, times(0)).hash(any());
         verify(logger, times(1)).logInfo(any());
         assertEquals(ResponseStatus.ERROR, result.status(), "Invalid status");
@@ -212,16 +213,30 @@ public class UnauthenticatedCommandTest {
     @Test
     void testRegisterCommandHashError() throws PasswordHasherException {
         when(sessionStore.hasSession(session)).thenReturn(false);
-        when(userRepository.any(any())).thenReturn(false);
+        when(userRepository.findBy(any(), any())).thenReturn(Optional.empty());
         when(passwordHasher.hash(any())).thenThrow(PasswordHasherException.class);
 
         var result = executor.execute("register username Abcdef1.", session);
 
         verify(sessionStore, times(0)).register(any());
-        verify(userRepository, times(0)).add(any());
+        verify(userRepository, times(0)).addIfAbsent(any(), any(), any());
         verify(passwordHasher, times(1)).hash(any());
         verify(logger, times(1)).logError(any());
         verify(logger, times(1)).logException(any(), any());
         assertEquals(ResponseStatus.ERROR, result.status(), "Invalid status");
     }
+
+    @Test
+    void testRegisterCommandUsernameTakenMeanwhile() throws PasswordHasherException {
+        when(sessionStore.hasSession(session)).thenReturn(false);
+        when(userRepository.findBy(any(), any())).thenReturn(Optional.empty());
+        when(passwordHasher.hash(any())).thenReturn("hashedpass");
+        when(userRepository.addIfAbsent(any(), any(), any())).thenReturn(false);
+
+        var result = executor.execute("register username Abcdef1.", session);
+
+        verify(sessionStore, times(0)).register(any());
+        verify(logger, times(1)).logInfo(any());
+        assertEquals(ResponseStatus.ERROR, result.status(), "Invalid status");
+    }
 }
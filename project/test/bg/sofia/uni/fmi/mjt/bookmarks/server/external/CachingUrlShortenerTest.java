@@ -0,0 +1,157 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.external;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.exceptions.UrlShortenerException;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.ShortLink;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.Repository;
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CachingUrlShortenerTest {
+
+    private static final String URL = "https://example.com/page";
+    private static final String SHORT = "https://bit.ly/abc";
+
+    private final Repository<String, ShortLink> store = mock(Repository.class);
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private HttpServer server;
+    private volatile int failures;
+    private CachingUrlShortener shortener;
+
+    @BeforeEach
+    void setup() throws IOException {
+        when(store.get(any())).thenReturn(Optional.empty());
+
+        // Stands in for the Bitly API: fails the first requests, then waits for the test to release it
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/shorten", exchange -> {
+            int call = calls.incrementAndGet();
+            int status = HttpURLConnection.HTTP_CREATED;
+            if (call <= failures) {
+                status = HttpURLConnection.HTTP_UNAVAILABLE;
+            } else {
+                awaitRelease();
+            }
+
+            byte[] body = new Gson().toJson(new ShortUrlResult("now", "abc", SHORT)).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        var bitly = new BitlyUrlShortener(HttpClient.newHttpClient(), "token",
+            URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/shorten"));
+        shortener = CachingUrlShortener.configure(bitly, store)
+            .configureRetries(3, Duration.ofMillis(10))
+            .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        server.stop(0);
+        shortener.shutdown();
+    }
+
+    @Test
+    void testConcurrentRequestsAreCoalesced() {
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(shortener.shortenAsync(URL));
+        }
+        release.countDown();
+
+        results.forEach(result -> assertEquals(SHORT, result.join(), "Every caller should get the short url."));
+        assertEquals(1, calls.get(), "Identical requests in flight should share one call.");
+        verify(store, times(1)).add(any());
+    }
+
+    @Test
+    void testStoredUrlIsNotShortenedAgain() throws UrlShortenerException {
+        when(store.get(URL)).thenReturn(Optional.of(new ShortLink(URL, SHORT)));
+
+        assertEquals(SHORT, shortener.shorten(URL), "Stored short url should be returned.");
+        assertEquals(0, calls.get(), "Stored url should not reach the service.");
+    }
+
+    @Test
+    void testFailedRequestIsRetried() throws UrlShortenerException {
+        failures = 2;
+        release.countDown();
+
+        assertEquals(SHORT, shortener.shorten(URL), "Request should succeed after retries.");
+        assertEquals(3, calls.get(), "Two failures should be followed by a third attempt.");
+    }
+
+    @Test
+    void testRetriesAreLimited() {
+        failures = 5;
+
+        assertThrows(UrlShortenerException.class, () -> shortener.shorten(URL), "Exhausted retries should fail.");
+        assertEquals(3, calls.get(), "Only the configured attempts should be made.");
+        verify(store, times(0)).add(any());
+    }
+
+    @Test
+    void testFailedRequestIsNotKeptInFlight() {
+        failures = 10;
+
+        assertThrows(UrlShortenerException.class, () -> shortener.shorten(URL), "Exhausted retries should fail.");
+        assertThrows(UrlShortenerException.class, () -> shortener.shorten(URL), "Second request should fail too.");
+        assertEquals(6, calls.get(), "A failed request should not be shared with the next caller.");
+    }
+
+    @Test
+    void testInstantResultsAreNotKeptInFlight() throws UrlShortenerException {
+        UrlShortener delegate = mock(UrlShortener.class);
+        when(delegate.shorten(URL)).thenReturn(SHORT);
+        var fast = CachingUrlShortener.configure(delegate, store).build();
+
+        try {
+            for (int i = 0; i < 100; i++) {
+                assertEquals(SHORT, fast.shorten(URL), "Every request should get the short url.");
+            }
+        } finally {
+            fast.shutdown();
+        }
+        verify(delegate, times(100)).shorten(URL);
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.external;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.exceptions.UrlShortenerException;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.ShortCode;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.FileRepositoryOptions;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.MappedFileRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LocalUrlShortenerTest {
+
+    private static final String HOST = "127.0.0.1";
+    private static final String BASE_URL = "http://short.local/";
+    private static final String URL = "https://example.com/some/long/path?with=query";
+
+    @TempDir
+    Path directory;
+
+    private MappedFileRepository<String, ShortCode> codes;
+    private LocalUrlShortener shortener;
+
+    @BeforeEach
+    void setup() {
+        codes = repository();
+        shortener = LocalUrlShortener.configure(codes, BASE_URL).configureHost(HOST).configurePort(0).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        shortener.stop();
+    }
+
+    @Test
+    void testSameUrlGetsSameCode() throws UrlShortenerException {
+        String shortened = shortener.shorten(URL);
+
+        assertTrue(shortened.startsWith(BASE_URL), "Short url should use the base url.");
+        assertTrue(shortened.length() <= BASE_URL.length() + 7, "Code should be at most 7 characters.");
+        assertEquals(shortened, shortener.shorten(URL), "Shortening should be idempotent.");
+        assertNotEquals(shortened, shortener.shorten(URL + "2"), "Different urls should get different codes.");
+    }
+
+    @Test
+    void testCodesSurviveReload() throws UrlShortenerException {
+        String code = shortener.shorten(URL).substring(BASE_URL.length());
+
+        var reloaded = repository();
+        assertEquals(URL, reloaded.get(code).map(ShortCode::getUrl).orElse(null), "Code should be persisted.");
+    }
+
+    @Test
+    void testRedirectEndpoint() throws UrlShortenerException, IOException, InterruptedException {
+        String code = shortener.shorten(URL).substring(BASE_URL.length());
+        shortener.start();
+
+        var client = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.NEVER).build();
+        var found = client.send(request(code), HttpResponse.BodyHandlers.discarding());
+        var missing = client.send(request("missing"), HttpResponse.BodyHandlers.discarding());
+
+        assertEquals(HttpURLConnection.HTTP_MOVED_PERM, found.statusCode(), "Known code should redirect.");
+        assertEquals(URL, found.headers().firstValue("Location").orElse(null), "Redirect should go to the url.");
+        assertEquals(HttpURLConnection.HTTP_NOT_FOUND, missing.statusCode(), "Unknown code should not be found.");
+    }
+
+    private HttpRequest request(String code) {
+        return HttpRequest.newBuilder(URI.create("http://" + HOST + ":" + shortener.port() + "/" + code)).build();
+    }
+
+    private MappedFileRepository<String, ShortCode> repository() {
+        var repository = new MappedFileRepository<>(
+            FileRepositoryOptions.create(directory.resolve("codes").toString()).build(), String.class,
+            ShortCode.class);
+        repository.load();
+        return repository;
+    }
+}
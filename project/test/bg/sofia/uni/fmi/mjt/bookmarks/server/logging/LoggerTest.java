@@ -7,11 +7,16 @@ import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.datetime.DateTimeProvider;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.function.Supplier;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -71,6 +76,83 @@ public class LoggerTest {
         verify(fileProvider, times(1)).writeError(any(Exception.class), anyString());
     }
 
+    @Test
+    void testParameterizedLog() throws LoggerOperationException {
+        logger.log(Severity.INFO, "{} sent {} bytes {}", "client", 42);
+
+        verify(consoleProvider, times(1))
+            .write("[INFO] [" + time + "] client sent 42 bytes {}" + System.lineSeparator());
+        verify(fileProvider, times(0)).write(anyString());
+    }
+
+    @Test
+    void testDisabledSeverityIsNotFormatted() throws LoggerOperationException {
+        Logger disabled = DefaultLogger.configure().configureConsoleProvider(consoleProvider)
+            .configureFileProvider(fileProvider).configureDateTimeProvider(dateTimeProvider).build();
+        Supplier<String> supplier = mock(Supplier.class);
+
+        disabled.log(Severity.ERROR, supplier);
+        disabled.log(Severity.ERROR, "{}", message);
+
+        assertFalse(disabled.isEnabled(Severity.ERROR), "Sinks without severity should accept nothing.");
+        verify(supplier, times(0)).get();
+        verify(dateTimeProvider, times(0)).getCurrentTime();
+        verify(consoleProvider, times(0)).write(anyString());
+        verify(fileProvider, times(0)).write(anyString());
+    }
+
+    @Test
+    void testSupplierLog() throws LoggerOperationException {
+        logger.log(Severity.ERROR, () -> message + "  ");
+
+        verify(consoleProvider, times(1)).write("[ERROR] [" + time + "] " + message + System.lineSeparator());
+        verify(fileProvider, times(1)).write("[ERROR] [" + time + "] " + message + System.lineSeparator());
+        verify(dateTimeProvider, times(1)).getCurrentTime();
+    }
+
+    @Test
+    void testStructuredEvent() throws LoggerOperationException {
+        Logger structured = DefaultLogger.configure().addFileLogging(Severity.INFO).configureFileProvider(fileProvider)
+            .configureFileFormat(LogFormat.JSON).configureDateTimeProvider(dateTimeProvider).build();
+
+        structured.log(new LogEvent(Severity.INFO, "Command \"done\"", "trace", "LOGIN", "user", Duration.ofMillis(2)));
+
+        verify(fileProvider, times(1)).write("{\"timestamp\":\"" + time + "\",\"severity\":\"INFO\"," +
+            "\"message\":\"Command \\\"done\\\"\",\"traceId\":\"trace\",\"command\":\"LOGIN\",\"user\":\"user\"," +
+            "\"latencyMicros\":2000}" + System.lineSeparator());
+    }
+
+    @Test
+    void testInfoIsSampled() throws LoggerOperationException {
+        Logger sampled = DefaultLogger.configure().addConsoleLogging(Severity.INFO)
+            .configureConsoleProvider(consoleProvider).configureInfoSampling(2)
+            .configureDateTimeProvider(dateTimeProvider).build();
+
+        for (int i = 0; i < 5; i++) {
+            sampled.logInfo(message);
+        }
+        sampled.logError(message);
+
+        verify(consoleProvider, times(2)).write("[INFO] [" + time + "] " + message + System.lineSeparator());
+        verify(consoleProvider, times(1)).write("[ERROR] [" + time + "] " + message + System.lineSeparator());
+        verify(consoleProvider, times(1))
+            .write("[INFO] [" + time + "] 3 info messages sampled out" + System.lineSeparator());
+    }
+
+    @Test
+    void testRepeatedExceptionIsDeduplicated() throws LoggerOperationException {
+        Logger deduplicating = DefaultLogger.configure().addFileLogging(Severity.ERROR)
+            .configureFileProvider(fileProvider).configureExceptionDeduplication(Duration.ofMinutes(1))
+            .configureDateTimeProvider(dateTimeProvider).build();
+
+        for (int i = 0; i < 3; i++) {
+            deduplicating.logException(new IllegalStateException(message), "id" + i);
+        }
+
+        verify(fileProvider, times(1)).writeError(any(IllegalStateException.class), eq("id0"));
+        verify(fileProvider, times(2)).write(contains("stack trace under trace id id0"));
+    }
+
     @Test
     void testLogThrow() throws LoggerOperationException {
         doThrow(LoggerOperationException.class).when(fileProvider).write(anyString());
@@ -0,0 +1,74 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.logging.providers;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.datetime.DateTimeProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AsyncFileProviderTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2023, 1, 1, 23, 59);
+
+    @TempDir
+    Path directory;
+
+    private final DateTimeProvider dateTimeProvider = mock(DateTimeProvider.class);
+    private AsyncFileProvider provider;
+
+    @BeforeEach
+    void setup() {
+        when(dateTimeProvider.getCurrentTime()).thenReturn(DAY);
+        provider = AsyncFileProvider.configure()
+            .configurePaths(directory.resolve("common").toString(), directory.resolve("errors").toString())
+            .configureCapacity(16)
+            .configureDateTimeProvider(dateTimeProvider)
+            .build();
+    }
+
+    @Test
+    void testLinesAreWrittenInOrder() throws IOException, InterruptedException {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            provider.write("line " + i + System.lineSeparator());
+            expected.add("line " + i);
+        }
+        provider.close();
+
+        assertEquals(expected, Files.readAllLines(directory.resolve("common").resolve("2023-01-01.txt")),
+            "Every line should be written once and in order.");
+    }
+
+    @Test
+    void testRollsOverDaily() throws IOException {
+        provider.write("first" + System.lineSeparator());
+        when(dateTimeProvider.getCurrentTime()).thenReturn(DAY.plusMinutes(2));
+        provider.write("second" + System.lineSeparator());
+        provider.close();
+
+        assertEquals(List.of("first"), Files.readAllLines(directory.resolve("common").resolve("2023-01-01.txt")),
+            "Lines of the first day should stay in its file.");
+        assertEquals(List.of("second"), Files.readAllLines(directory.resolve("common").resolve("2023-01-02.txt")),
+            "A new day should start a new file.");
+    }
+
+    @Test
+    void testErrorsGoToErrorFile() throws IOException {
+        provider.writeError(new IllegalStateException("boom"), "trace");
+        provider.close();
+
+        String errors = Files.readString(directory.resolve("errors").resolve("2023-01-01.txt"));
+        assertTrue(errors.contains("[trace]") && errors.contains("boom"), "Error should be written with its trace id.");
+    }
+}
@@ -0,0 +1,49 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Test
+    void testBucketsCoverEveryValue() {
+        for (long value = 0; value < 1 << 16; value++) {
+            int index = LatencyHistogram.index(value);
+            assertTrue(value <= LatencyHistogram.upperBound(index), "Value should not exceed its bucket.");
+            assertTrue(index == 0 || value > LatencyHistogram.upperBound(index - 1),
+                "Value should be above the previous bucket.");
+        }
+    }
+
+    @Test
+    void testPercentilesWithinPrecision() {
+        for (int millis = 1; millis <= 100; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        var snapshot = histogram.snapshot();
+
+        assertEquals(100, snapshot.count(), "Every value should be counted.");
+        assertWithin(50_000, snapshot.p50());
+        assertWithin(90_000, snapshot.p90());
+        assertWithin(99_000, snapshot.p99());
+        assertEquals(100_000, snapshot.max(), "Max should be exact.");
+        assertEquals(50_500, snapshot.mean(), "Mean should be exact.");
+    }
+
+    @Test
+    void testEmptySnapshot() {
+        assertEquals(HistogramSnapshot.EMPTY, histogram.snapshot(), "Nothing recorded should give zeros.");
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected * 107 / 100,
+            "Expected about " + expected + " but was " + actual + ".");
+    }
+}
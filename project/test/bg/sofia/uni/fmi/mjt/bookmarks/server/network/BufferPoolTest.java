@@ -0,0 +1,65 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BufferPoolTest {
+
+    @Test
+    void testReleasedBufferIsReused() {
+        BufferPool pool = new BufferPool(16, 4);
+        ByteBuffer buffer = pool.acquire();
+        buffer.put((byte) 1).flip();
+
+        pool.release(buffer);
+        ByteBuffer reused = pool.acquire();
+
+        assertSame(buffer, reused, "Released buffer should be handed out again.");
+        assertEquals(0, reused.position(), "Reused buffer should be cleared.");
+        assertEquals(16, reused.limit(), "Reused buffer should be cleared.");
+    }
+
+    @Test
+    void testAcquireAllocatesDirectBuffers() {
+        ByteBuffer buffer = new BufferPool(16, 4).acquire();
+
+        assertTrue(buffer.isDirect(), "Pooled buffers should be direct.");
+        assertEquals(16, buffer.capacity(), "Invalid buffer size.");
+    }
+
+    @Test
+    void testPoolIsCapped() {
+        BufferPool pool = new BufferPool(16, 2);
+        ByteBuffer first = pool.acquire();
+        ByteBuffer second = pool.acquire();
+        ByteBuffer third = pool.acquire();
+
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+
+        assertSame(first, pool.acquire(), "Buffers within the cap should be pooled.");
+        assertSame(second, pool.acquire(), "Buffers within the cap should be pooled.");
+        assertNotSame(third, pool.acquire(), "Buffers over the cap should be dropped.");
+    }
+
+    @Test
+    void testForeignBuffersAreNotPooled() {
+        BufferPool pool = new BufferPool(16, 4);
+        ByteBuffer heap = ByteBuffer.allocate(16);
+        ByteBuffer smaller = ByteBuffer.allocateDirect(8);
+
+        pool.release(heap);
+        pool.release(smaller);
+        ByteBuffer acquired = pool.acquire();
+
+        assertNotSame(heap, acquired, "Heap buffers should not be pooled.");
+        assertNotSame(smaller, acquired, "Buffers of another size should not be pooled.");
+    }
+}
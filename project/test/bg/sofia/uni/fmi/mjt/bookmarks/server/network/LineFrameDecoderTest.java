@@ -0,0 +1,73 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LineFrameDecoderTest {
+
+    private ReadableByteChannel channelOf(String content) {
+        return Channels.newChannel(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testDecodeMultipleFrames() throws IOException {
+        LineFrameDecoder decoder = new LineFrameDecoder(64, 1024);
+        List<String> frames = new ArrayList<>();
+
+        decoder.read(channelOf("login user pass\r\nlist\n"));
+        decoder.decode(frames::add);
+
+        assertEquals(List.of("login user pass", "list"), frames, "Invalid frames decoded.");
+    }
+
+    @Test
+    void testDecodeKeepsIncompleteFrame() throws IOException {
+        LineFrameDecoder decoder = new LineFrameDecoder(64, 1024);
+        List<String> frames = new ArrayList<>();
+
+        decoder.read(channelOf("add-to group http"));
+        decoder.decode(frames::add);
+        assertTrue(frames.isEmpty(), "Incomplete frame should not be decoded.");
+
+        decoder.read(channelOf("s://google.com\n"));
+        decoder.decode(frames::add);
+        assertEquals(List.of("add-to group https://google.com"), frames, "Frame should be reassembled.");
+    }
+
+    @Test
+    void testDecodeGrowsBufferForLargeFrame() throws IOException {
+        LineFrameDecoder decoder = new LineFrameDecoder(4, 1024);
+        List<String> frames = new ArrayList<>();
+        ReadableByteChannel channel = channelOf("import-from-chrome https://google.com\n");
+
+        while (decoder.read(channel) > 0) {
+            decoder.decode(frames::add);
+        }
+
+        assertEquals(List.of("import-from-chrome https://google.com"), frames, "Large frame should be decoded.");
+    }
+
+    @Test
+    void testReadFailsWhenFrameTooLarge() {
+        LineFrameDecoder decoder = new LineFrameDecoder(4, 8);
+        ReadableByteChannel channel = channelOf("a frame without a line feed");
+
+        assertThrows(IOException.class, () -> {
+            while (decoder.read(channel) > 0) {
+                decoder.decode(frame -> {
+                });
+            }
+        }, "Frames over the maximum size should be rejected.");
+    }
+}
@@ -0,0 +1,76 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ResponseEncoderTest {
+
+    private static final int BUFFER_SIZE = 4;
+
+    private final BufferPool pool = new BufferPool(BUFFER_SIZE, 16);
+    private final ResponseEncoder encoder = new ResponseEncoder(pool);
+
+    @Test
+    void testEncodeSingleBuffer() {
+        ByteBuffer[] buffers = encoder.encode("ok\n");
+
+        assertEquals(1, buffers.length, "Short response should fit one buffer.");
+        assertArrayEquals("ok\n".getBytes(StandardCharsets.UTF_8), concat(buffers), "Invalid bytes encoded.");
+    }
+
+    @Test
+    void testEncodeSpansSeveralBuffers() {
+        String message = "{\"data\":\"Bookmark added successfully.\",\"status\":\"OK\"}\n";
+
+        ByteBuffer[] buffers = encoder.encode(message);
+
+        assertTrue(buffers.length > 1, "Long response should span several buffers.");
+        assertArrayEquals(message.getBytes(StandardCharsets.UTF_8), concat(buffers), "Invalid bytes encoded.");
+    }
+
+    @Test
+    void testMultiByteCharacterOnBufferBoundary() {
+        // "abc" leaves one free byte, too few for the two byte letter; the four byte emoji needs a buffer of its own
+        String message = "abc\u0416\uD83D\uDE00d";
+
+        ByteBuffer[] buffers = encoder.encode(message);
+
+        assertArrayEquals(message.getBytes(StandardCharsets.UTF_8), concat(buffers),
+            "Characters on a buffer boundary should be encoded whole.");
+        for (ByteBuffer buffer : buffers) {
+            String part = StandardCharsets.UTF_8.decode(buffer.duplicate()).toString();
+            assertTrue(part.indexOf('\uFFFD') < 0, "A character should not be split between buffers.");
+        }
+    }
+
+    @Test
+    void testEncodeReusesReleasedBuffers() {
+        ByteBuffer[] first = encoder.encode("first response\n");
+        for (ByteBuffer buffer : first) {
+            pool.release(buffer);
+        }
+
+        ByteBuffer[] second = encoder.encode("next\n");
+
+        assertSame(first[0], second[0], "Released buffers should be reused.");
+        assertArrayEquals("next\n".getBytes(StandardCharsets.UTF_8), concat(second), "Invalid bytes encoded.");
+    }
+
+    private static byte[] concat(ByteBuffer[] buffers) {
+        var output = new ByteArrayOutputStream();
+        for (ByteBuffer buffer : buffers) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            output.writeBytes(bytes);
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,71 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    private JournalRecord record(JournalOperation operation, String key, String payload) {
+        return new JournalRecord(operation, key.getBytes(StandardCharsets.UTF_8),
+            payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testReplayReturnsSyncedRecordsInOrder() throws IOException {
+        Path path = directory.resolve("db.json.wal");
+        var journal = new WriteAheadLog(path);
+
+        journal.append(record(JournalOperation.ADD, "first", "payload"));
+        long sequence = journal.append(record(JournalOperation.REMOVE, "second", ""));
+        journal.sync(sequence);
+
+        List<String> replayed = new ArrayList<>();
+        new WriteAheadLog(path).replay(x -> replayed.add(x.operation() + ":" + new String(x.key())));
+
+        assertEquals(List.of("ADD:first", "REMOVE:second"), replayed, "Invalid records replayed.");
+    }
+
+    @Test
+    void testReplayTruncatesTornTail() throws IOException {
+        Path path = directory.resolve("db.json.wal");
+        var journal = new WriteAheadLog(path);
+        journal.sync(journal.append(record(JournalOperation.ADD, "key", "payload")));
+        long validSize = Files.size(path);
+
+        Files.write(path, new byte[] {0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        assertEquals(1, new WriteAheadLog(path).replay(x -> { }), "Only complete records should be replayed.");
+        assertEquals(validSize, Files.size(path), "Torn tail should be truncated.");
+    }
+
+    @Test
+    void testTruncateBeforeKeepsLaterRecords() throws IOException {
+        Path path = directory.resolve("db.json.wal");
+        var journal = new WriteAheadLog(path);
+        journal.sync(journal.append(record(JournalOperation.ADD, "old", "payload")));
+
+        long position = journal.appendedBytes();
+        journal.append(record(JournalOperation.ADD, "new", "payload"));
+
+        journal.truncateBefore(position);
+        journal.sync(journal.append(record(JournalOperation.REMOVE, "newest", "")));
+
+        List<String> replayed = new ArrayList<>();
+        new WriteAheadLog(path).replay(x -> replayed.add(new String(x.key())));
+
+        assertEquals(List.of("new", "newest"), replayed, "Only records after the position should be kept.");
+    }
+}
@@ -1,15 +1,20 @@
 package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository;
 
 import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.PersistStatistics;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.AtomicFileOutputStream;
 import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize.Serializer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.Reader;
-import java.io.StringReader;
-import java.io.Writer;
+import java.io.InputStream;
 import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -17,25 +22,27 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class FileRepositoryTest {
 
     FileRepositoryOptions options = mock(FileRepositoryOptions.class);
     FileRepository<String, User> repo = new FileRepository<>(options, String.class, User.class);
-    Reader reader = new StringReader("not empty");
-    Writer writer = mock(Writer.class);
+    InputStream input = new ByteArrayInputStream("not empty".getBytes());
+    AtomicFileOutputStream output = mock(AtomicFileOutputStream.class);
     Serializer serializer = mock(Serializer.class);
 
     @BeforeEach
     void setup() {
         repo.add(new User("key", "dsa", " asd"));
         when(options.serializer()).thenReturn(serializer);
-        when(options.reader()).thenReturn(reader);
-        when(options.writer()).thenReturn(writer);
+        when(options.input()).thenReturn(input);
+        when(options.output()).thenReturn(output);
     }
 
     @Test
@@ -45,8 +52,8 @@ public class FileRepositoryTest {
     }
 
     @Test
-    void testLoadFail() {
-        when(serializer.deserialize(any(), any())).thenThrow(RuntimeException.class);
+    void testLoadFail() throws IOException {
+        doThrow(RuntimeException.class).when(serializer).deserializeEntries(any(), any(), any());
         assertThrows(RuntimeException.class, () -> repo.load());
     }
 
@@ -78,16 +85,72 @@ public class FileRepositoryTest {
         assertTrue(repo.any(x -> x.getKey().equals("key")), "Invalid data returned.");
     }
 
+    @Test
+    void testFindBy() {
+        repo.addIndex("username", User::getUsername);
+        repo.add(new User("key2", "other", " asd"));
+
+        assertEquals("key2", repo.findBy("username", "other").orElseThrow().getKey(), "Invalid data returned.");
+        assertTrue(repo.findBy("username", "nonexisting").isEmpty(), "Invalid data returned.");
+    }
+
+    @Test
+    void testConcurrentAddIfAbsent() throws InterruptedException {
+        repo.addIndex("username", User::getUsername);
+        int threads = 16;
+        var start = new CountDownLatch(1);
+        var added = new AtomicInteger();
+        var pool = Executors.newFixedThreadPool(threads);
+
+        for (int i = 0; i < threads; i++) {
+            String key = "racer" + i;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (repo.addIfAbsent("username", "racer", new User(key, "racer", "pass"))) {
+                    added.incrementAndGet();
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS), "Registrations should finish.");
+        assertEquals(1, added.get(), "Only one registration of a username should succeed.");
+        assertEquals(1, repo.findAllBy("username", "racer").size(), "Username should be taken once.");
+    }
+
+    @Test
+    void testFindByAfterRemove() {
+        repo.addIndex("username", User::getUsername);
+        repo.remove("key");
+
+        assertTrue(repo.findAllBy("username", "dsa").isEmpty(), "Removed entity should not be indexed.");
+    }
+
     @Test
     void testPersist() {
         assertDoesNotThrow(() -> repo.persist(), "Persistence should succeed.");
     }
 
 
+    @Test
+    void testPersistSkipsCleanRepository() throws IOException {
+        assertTrue(repo.isDirty(), "Repository should be dirty after add.");
+        assertEquals(1, repo.persist().entities(), "Invalid number of persisted entities.");
+        assertFalse(repo.isDirty(), "Repository should be clean after persist.");
+
+        assertEquals(PersistStatistics.EMPTY, repo.persist(), "Clean repository should not be written.");
+        verify(serializer, times(1)).serializeEntries(any(), any(), any());
+    }
+
     @Test
     void testPersistFail() throws IOException {
-        doThrow(IOException.class).when(writer).write(anyString());
-        when(serializer.serialize(any())).thenThrow(RuntimeException.class);
+        doThrow(IOException.class).when(output).write(any(byte[].class), anyInt(), anyInt());
+        doThrow(IOException.class).when(serializer).serializeEntries(any(), any(), any());
         assertThrows(RuntimeException.class, () -> repo.persist(), "Persistence should fail due to IO failure");
     }
 }
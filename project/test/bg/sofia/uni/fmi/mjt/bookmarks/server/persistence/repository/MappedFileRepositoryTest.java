@@ -0,0 +1,161 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.DIContainer;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Group;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.ShortCode;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.DatabaseContext;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.MappedFileRepository.Materialization;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.observe.BookmarksObserver;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.search.SearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MappedFileRepositoryTest {
+
+    private static final String URL_INDEX = "url";
+
+    private final DatabaseContext context = mock(DatabaseContext.class);
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setup() {
+        DIContainer.clear();
+        DIContainer.register(DatabaseContext.class, context);
+    }
+
+    @Test
+    void testReadsAreNotKeptByDefault() {
+        var repository = repository(Materialization.NONE);
+        repository.add(new ShortCode("a", "https://example.com"));
+
+        var first = repository.get("a").orElseThrow();
+        var second = repository.get("a").orElseThrow();
+
+        assertNotSame(first, second, "Without an identity map every read should deserialize the record.");
+        assertEquals("https://example.com", second.getUrl(), "Invalid data returned.");
+    }
+
+    @Test
+    void testIdentityMapReturnsSameObject() {
+        var repository = repository(Materialization.ON_ACCESS);
+        repository.add(new ShortCode("a", "https://example.com"));
+        repository.persist();
+
+        var reloaded = repository(Materialization.ON_ACCESS);
+
+        assertSame(reloaded.get("a").orElseThrow(), reloaded.get("a").orElseThrow(),
+            "Identity map should return the materialized object.");
+    }
+
+    @Test
+    void testFindAllByWithoutIdentityMap() {
+        var repository = repository(Materialization.NONE);
+        repository.addIndex(URL_INDEX, ShortCode::getUrl);
+        repository.add(new ShortCode("a", "https://example.com"));
+        repository.add(new ShortCode("b", "https://example.com"));
+        repository.add(new ShortCode("c", "https://example.org"));
+
+        assertEquals(2, repository.findAllBy(URL_INDEX, "https://example.com").size(), "Invalid data returned.");
+        assertEquals("c", repository.findBy(URL_INDEX, "https://example.org").orElseThrow().getCode(),
+            "Invalid data returned.");
+        assertThrows(IllegalArgumentException.class, () -> repository.findBy("missing", "c"),
+            "Unknown index should be rejected.");
+    }
+
+    @Test
+    void testPersistedChangesSurviveReload() {
+        var repository = repository(Materialization.NONE);
+        repository.add(new ShortCode("a", "https://example.com"));
+        repository.add(new ShortCode("b", "https://example.org"));
+        repository.add(new ShortCode("a", "https://example.net"));
+        repository.remove("b");
+        repository.persist();
+
+        var reloaded = repository(Materialization.ON_LOAD);
+
+        assertEquals("https://example.net", reloaded.get("a").orElseThrow().getUrl(), "Replaced record expected.");
+        assertFalse(reloaded.contains("b"), "Removed record should not be loaded.");
+        assertEquals(1, reloaded.getAll().size(), "Invalid data returned.");
+        assertTrue(reloaded.any(code -> code.getCode().equals("a")), "Invalid data returned.");
+    }
+
+    @Test
+    void testBookmarksAreLinkedOnce() {
+        var user = new User("user", "name", "pass");
+        var group = new Group("group", "default", user);
+        var bookmarks = bookmarks();
+        bookmarks.add(new Bookmark("b1", "https://example.com", "", "Example", List.of("java"), user, group));
+        bookmarks.add(new Bookmark("b2", "https://example.org", "", "Other", List.of("java"), user, group));
+        bookmarks.persist();
+
+        var reloadedUser = new User("user", "name", "pass");
+        var reloadedGroup = new Group("group", "default", reloadedUser);
+        registerContext(reloadedUser, reloadedGroup);
+        var reloaded = bookmarks();
+        reloaded.attach(new BookmarksObserver(context.users(), context.groups(), new SearchIndex()));
+
+        assertSame(reloaded.get("b1").orElseThrow(), reloaded.get("b1").orElseThrow(),
+            "Linked entities should be materialized once.");
+        assertEquals(2, reloaded.getAll().size(), "Invalid data returned.");
+        assertEquals(2, reloadedUser.getBookmarks().size(), "Every bookmark should be linked to its user once.");
+
+        reloaded.remove("b1");
+        reloaded.persist();
+
+        assertEquals(1, reloadedUser.getBookmarks().size(), "Removed bookmark should be unlinked from its user.");
+        assertEquals(1, reloadedGroup.getBookmarks().size(), "Removed bookmark should be unlinked from its group.");
+        assertFalse(bookmarks().contains("b1"), "Removal should survive a reload.");
+    }
+
+    @Test
+    void testLinkedEntitiesRequireIdentityMap() {
+        var options = FileRepositoryOptions.create(directory.resolve("bookmarks").toString()).build();
+
+        assertThrows(IllegalArgumentException.class,
+            () -> new MappedFileRepository<>(options, String.class, Bookmark.class, Materialization.NONE),
+            "Linked entities should not be read more than once.");
+    }
+
+    private void registerContext(User user, Group group) {
+        Repository<String, User> users = mock(Repository.class);
+        Repository<String, Group> groups = mock(Repository.class);
+        when(users.get(user.getKey())).thenReturn(Optional.of(user));
+        when(groups.get(group.getKey())).thenReturn(Optional.of(group));
+        when(context.users()).thenReturn(users);
+        when(context.groups()).thenReturn(groups);
+    }
+
+    private MappedFileRepository<String, Bookmark> bookmarks() {
+        var repository = new MappedFileRepository<>(
+            FileRepositoryOptions.create(directory.resolve("bookmarks").toString()).build(), String.class,
+            Bookmark.class);
+        repository.load();
+        return repository;
+    }
+
+    private MappedFileRepository<String, ShortCode> repository(Materialization materialization) {
+        var repository = new MappedFileRepository<>(
+            FileRepositoryOptions.create(directory.resolve("codes").toString()).build(), String.class,
+            ShortCode.class, materialization);
+        repository.load();
+        return repository;
+    }
+}
@@ -0,0 +1,63 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.search;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Group;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KeywordIndexTest {
+
+    private final User user = new User("user", "username", "password");
+    private final Group group = new Group("group", "name", user);
+
+    private final Bookmark java = bookmark("1", List.of("java", "stream", "collect"));
+    private final Bookmark streams = bookmark("2", List.of("stream", "java"));
+    private final Bookmark python = bookmark("3", List.of("python", "list"));
+
+    private KeywordIndex index;
+
+    private Bookmark bookmark(String key, List<String> keywords) {
+        return new Bookmark(key, "https://" + key, "", key, keywords, user, group);
+    }
+
+    @BeforeEach
+    void setup() {
+        index = new KeywordIndex();
+        index.add(java);
+        index.add(streams);
+        index.add(python);
+    }
+
+    @Test
+    void testSearchAnyTag() {
+        assertEquals(List.of(python, java, streams), index.search(List.of("java", "python"), false),
+            "Bookmarks having any of the tags should be returned ranked.");
+    }
+
+    @Test
+    void testSearchAllTags() {
+        assertEquals(List.of(java, streams), index.search(List.of("stream", "java"), true),
+            "Only bookmarks having every tag should be returned ranked.");
+        assertTrue(index.search(List.of("java", "python"), true).isEmpty(), "No bookmark has both tags.");
+    }
+
+    @Test
+    void testSearchStemmedTag() {
+        assertEquals(List.of(java), index.search(List.of("Collecting"), false),
+            "Tags should be matched after stemming.");
+    }
+
+    @Test
+    void testSearchAfterRemove() {
+        index.remove(java);
+
+        assertEquals(List.of(streams), index.search(List.of("java"), false), "Removed bookmark returned.");
+        assertEquals(2, index.size(), "Invalid indexed bookmarks count.");
+    }
+}
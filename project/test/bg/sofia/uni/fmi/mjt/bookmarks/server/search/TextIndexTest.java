@@ -0,0 +1,82 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TextIndexTest {
+
+    private TextIndex index;
+
+    @BeforeEach
+    void setup() {
+        index = new TextIndex();
+        index.add("a", Tokenizer.tokenize("The quick brown fox jumps over the lazy dog."));
+        index.add("b", Tokenizer.tokenize("A brown dog and a quick cat. Quick quick!"));
+        index.add("c", Tokenizer.tokenize("Cats are sleeping all day"));
+    }
+
+    @Test
+    void testSearchRanksByOccurrences() {
+        assertEquals(List.of("b", "a"), index.search("quick"), "Invalid ranking of matching documents.");
+    }
+
+    @Test
+    void testSearchPhrase() {
+        assertEquals(List.of("a"), index.search("\"quick brown\""), "Only the exact phrase should match.");
+        assertTrue(index.search("\"lazy fox\"").isEmpty(), "Words out of order should not match a phrase.");
+    }
+
+    @Test
+    void testSearchBooleanQuery() {
+        assertEquals(List.of("a", "b"), index.search("brown dog"), "Every term should be required.");
+        assertEquals(List.of("b"), index.search("brown -fox"), "Excluded term should filter documents.");
+        assertEquals(List.of("a", "b"), index.search("fox OR cat"), "Either alternative should match.");
+        assertEquals(List.of("c"), index.search("sleep"), "Terms should be matched after stemming.");
+    }
+
+    @Test
+    void testSearchAfterRemove() {
+        index.remove("b");
+
+        assertEquals(List.of("a"), index.search("quick"), "Removed document returned.");
+    }
+
+    @Test
+    void testMergeKeepsLiveDocuments() {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            tokens.add("word" + i);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            index.add("doc" + i, tokens);
+            index.remove("doc" + (i - 1));
+        }
+
+        assertTrue(index.segmentCount() <= 9, "Segments should be merged.");
+        assertEquals(List.of("doc99"), index.search("\"word1 word2\""), "Only the live document should match.");
+    }
+
+    @Test
+    void testWriteAndRead() throws IOException {
+        var output = new ByteArrayOutputStream();
+        index.write(new DataOutputStream(output));
+
+        var loaded = new TextIndex();
+        loaded.read(new DataInputStream(new ByteArrayInputStream(output.toByteArray())));
+
+        assertEquals(3, loaded.size(), "Invalid documents count after read.");
+        assertEquals(List.of("a"), loaded.search("\"quick brown\""), "Invalid search result after read.");
+    }
+}
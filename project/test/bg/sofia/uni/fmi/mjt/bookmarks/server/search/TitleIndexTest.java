@@ -0,0 +1,63 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.search;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Group;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TitleIndexTest {
+
+    private final User user = new User("user", "username", "password");
+    private final Group group = new Group("group", "name", user);
+
+    private final Bookmark guide = bookmark("1", "Java Streams Guide");
+    private final Bookmark learn = bookmark("2", "Learn Java");
+    private final Bookmark script = bookmark("3", "JavaScript basics");
+    private final Bookmark python = bookmark("4", "Python lists");
+
+    private TitleIndex index;
+
+    private Bookmark bookmark(String key, String title) {
+        return new Bookmark(key, "https://" + key, "", title, List.of(), user, group);
+    }
+
+    @BeforeEach
+    void setup() {
+        index = new TitleIndex();
+        index.add(guide);
+        index.add(learn);
+        index.add(script);
+        index.add(python);
+    }
+
+    @Test
+    void testSearchRanksPrefixMatchesFirst() {
+        assertEquals(List.of(script, guide, learn), index.search("JAVA"),
+            "Title prefixes should come before word prefixes, shorter titles first.");
+    }
+
+    @Test
+    void testSearchSubstring() {
+        assertEquals(List.of(script), index.search("script"), "Substring should be matched.");
+        assertEquals(List.of(python), index.search("li"), "Short substring should be matched.");
+    }
+
+    @Test
+    void testSearchFuzzy() {
+        assertEquals(List.of(python), index.search("pyton lists"), "Misspelled title should be matched.");
+        assertTrue(index.search("rust").isEmpty(), "Unrelated query should not match.");
+    }
+
+    @Test
+    void testSearchAfterRemove() {
+        index.remove(script);
+
+        assertEquals(List.of(guide, learn), index.search("java"), "Removed bookmark returned.");
+    }
+}
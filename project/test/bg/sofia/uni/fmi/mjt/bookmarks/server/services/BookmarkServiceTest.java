@@ -13,22 +13,32 @@ import com.google.gson.Gson;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class BookmarkServiceTest {
 
     HttpClient client = mock(HttpClient.class);
     HttpResponse<String> response = mock(HttpResponse.class);
+    HttpResponse<InputStream> page = mock(HttpResponse.class);
     UrlShortener shortener = mock(UrlShortener.class);
     User user = mock(User.class);
     Group group = mock(Group.class);
@@ -36,6 +46,9 @@ public class BookmarkServiceTest {
 
     BookmarksService service = new DefaultBookmarksService(client);
 
+    private static final String PAGE =
+        "<html><head><title>Streams</title></head><body>java streams java collectors</body></html>";
+
     @BeforeEach
     void setup() throws IOException, InterruptedException, StopWordsException {
         Stopwords.load();
@@ -44,11 +57,10 @@ public class BookmarkServiceTest {
         when(client.send(any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofString()))).thenReturn(response);
         when(response.statusCode()).thenReturn(200);
         when(response.body()).thenReturn(new Gson().toJson(result));
-    }
-
-    @Test
-    void testValidateUrl() throws InvalidBookmarkException {
-        assertTrue(service.validateUrl("https://google.com"), "Should be valid when page is reachable.");
+        when(client.send(any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream()))).thenReturn(page);
+        when(page.statusCode()).thenReturn(200);
+        when(page.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+        when(page.body()).thenAnswer(invocation -> new ByteArrayInputStream(PAGE.getBytes(StandardCharsets.UTF_8)));
     }
 
     @Test
@@ -63,4 +75,73 @@ public class BookmarkServiceTest {
         assertEquals("asd", service.generateBookmark("https://google.com", group, true, user).getShortened(),
             "asd");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCreatePlaceholder() throws InvalidBookmarkException {
+        var placeholder = service.createPlaceholder("https://google.com", group, user);
+
+        assertEquals("https://google.com", placeholder.getUrl(), "Url should be kept.");
+        assertTrue(placeholder.getKeywords().isEmpty(), "Keywords are filled in by the enrichment.");
+    }
+
+    @Test
+    void testCreatePlaceholderInvalidUrl() {
+        assertThrows(InvalidBookmarkException.class, () -> service.createPlaceholder("google", group, user),
+            "Relative url should be rejected.");
+        assertThrows(InvalidBookmarkException.class, () -> service.createPlaceholder("ftp://google.com", group, user),
+            "Non http url should be rejected.");
+    }
+
+    @Test
+    void testGenerateBookmarkSingleFetch() throws InvalidBookmarkException, IOException, InterruptedException {
+        var bookmark = service.generateBookmark("https://google.com", group, false, user);
+
+        assertEquals("Streams", bookmark.getTitle(), "Title should come from the fetched page.");
+        assertEquals("java", bookmark.getKeywords().get(0), "Most frequent word should come first.");
+        verify(client, times(1)).send(any(HttpRequest.class), any());
+    }
+
+    @Test
+    void testGenerateBookmarkFollowsRedirect() throws InvalidBookmarkException, IOException, InterruptedException {
+        HttpResponse<InputStream> redirect = mock(HttpResponse.class);
+        when(redirect.statusCode()).thenReturn(301);
+        when(redirect.headers()).thenReturn(
+            HttpHeaders.of(Map.of("Location", List.of("/moved")), (name, value) -> true));
+        when(redirect.body()).thenReturn(InputStream.nullInputStream());
+        when(client.send(any(HttpRequest.class), eq(HttpResponse.BodyHandlers.ofInputStream())))
+            .thenReturn(redirect, page);
+
+        assertEquals("Streams", service.generateBookmark("https://google.com", group, false, user).getTitle(),
+            "Redirect should be followed.");
+        verify(client, times(2)).send(any(HttpRequest.class), any());
+    }
+
+    @Test
+    void testGenerateBookmarkNotFound() {
+        when(page.statusCode()).thenReturn(404);
+
+        assertThrows(InvalidBookmarkException.class,
+            () -> service.generateBookmark("https://google.com", group, false, user), "Missing page is invalid.");
+    }
+
+    @Test
+    void testGenerateBookmarkErrorStatus() {
+        when(page.statusCode()).thenReturn(403);
+
+        assertThrows(InvalidBookmarkException.class,
+            () -> service.generateBookmark("https://google.com", group, false, user), "Error page is invalid.");
+        assertEquals(0, ((DefaultBookmarksService) service).pageCacheStatistics().size(),
+            "Error page should not be cached.");
+    }
+
+    @Test
+    void testGenerateBookmarkNotHtml() {
+        when(page.headers()).thenReturn(
+            HttpHeaders.of(Map.of("Content-Type", List.of("application/pdf")), (name, value) -> true));
+
+        assertThrows(InvalidBookmarkException.class,
+            () -> service.generateBookmark("https://google.com", group, false, user), "Non HTML page is invalid.");
+        assertEquals(0, ((DefaultBookmarksService) service).pageCacheStatistics().size(),
+            "Non HTML page should not be cached.");
+    }
+}
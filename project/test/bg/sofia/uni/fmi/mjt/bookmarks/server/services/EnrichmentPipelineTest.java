@@ -0,0 +1,162 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.services;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.DIContainer;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.exceptions.StopWordsException;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.external.UrlShortener;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.logging.Logger;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.metrics.LatencyHistogram;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Bookmark;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.Group;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.DatabaseContext;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.persistence.repository.Repository;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.search.SearchIndex;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.Stopwords;
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.datetime.DefaultDateTimeProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EnrichmentPipelineTest {
+
+    private static final String URL = "https://example.com/streams";
+    private static final String PAGE =
+        "<html><head><title>Streams</title></head><body>java streams java collectors</body></html>";
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    HttpClient client = mock(HttpClient.class);
+    HttpResponse<InputStream> page = response(200);
+    Logger logger = mock(Logger.class);
+    DatabaseContext context = mock(DatabaseContext.class);
+    Repository<String, Bookmark> bookmarks = mock(Repository.class);
+    User user = mock(User.class);
+    Group group = mock(Group.class);
+    Map<String, Bookmark> placeholders = new ConcurrentHashMap<>();
+
+    EnrichmentPipeline pipeline = new EnrichmentPipeline(
+        new PageFetcher(client, Duration.ofSeconds(1), 1024 * 1024, new LatencyHistogram()),
+        new PageCache(16, Duration.ofHours(1), new DefaultDateTimeProvider()),
+        new RequestThrottle(4, 1000),
+        false,
+        8,
+        Duration.ofMillis(1));
+
+    @BeforeEach
+    void setup() throws StopWordsException {
+        Stopwords.load();
+        DIContainer.clear();
+        DIContainer.register(Logger.class, logger);
+        DIContainer.register(DatabaseContext.class, context);
+        DIContainer.register(UrlShortener.class, mock(UrlShortener.class));
+        when(context.bookmarks()).thenReturn(bookmarks);
+        when(bookmarks.get(anyString()))
+            .thenAnswer(invocation -> Optional.ofNullable(placeholders.get(invocation.<String>getArgument(0))));
+        when(client.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(CompletableFuture.completedFuture(page));
+    }
+
+    @Test
+    void testShutdownDrainsSubmittedWork() {
+        for (int i = 0; i < 20; i++) {
+            pipeline.submit(placeholder(URL + i), false);
+        }
+
+        assertTrue(pipeline.shutdown(TIMEOUT), "Submitted work should finish before the timeout.");
+        verify(bookmarks, times(20)).add(argThat(bookmark -> bookmark.getTitle().equals("Streams")));
+    }
+
+    @Test
+    void testTransientFailureIsRetried() {
+        HttpResponse<InputStream> unavailable = response(503);
+        when(client.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(CompletableFuture.completedFuture(unavailable), CompletableFuture.completedFuture(page));
+
+        pipeline.submit(placeholder(URL), false);
+
+        assertTrue(pipeline.shutdown(TIMEOUT), "Submitted work should finish before the timeout.");
+        verify(client, times(2)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        verify(bookmarks, times(1)).add(argThat(bookmark -> bookmark.getTitle().equals("Streams")));
+    }
+
+    @Test
+    void testPermanentFailureKeepsPlaceholder() {
+        HttpResponse<InputStream> missing = response(404);
+        when(client.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+            .thenReturn(CompletableFuture.completedFuture(missing));
+
+        pipeline.submit(placeholder(URL), false);
+
+        assertTrue(pipeline.shutdown(TIMEOUT), "Submitted work should finish before the timeout.");
+        verify(client, times(1)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        verify(bookmarks, never()).add(any());
+        verify(logger, times(1)).logError(anyString());
+    }
+
+    @Test
+    void testCachedTextIsIndexedWithoutFetch() {
+        SearchIndex searchIndex = mock(SearchIndex.class);
+        when(context.searchIndex()).thenReturn(searchIndex);
+        var fullTextPipeline = new EnrichmentPipeline(
+            new PageFetcher(client, Duration.ofSeconds(1), 1024 * 1024, new LatencyHistogram()),
+            new PageCache(16, 1024 * 1024, Duration.ofHours(1), new DefaultDateTimeProvider()),
+            new RequestThrottle(4, 1000),
+            true,
+            8,
+            Duration.ofMillis(1));
+
+        fullTextPipeline.submit(placeholder(URL), false);
+        fullTextPipeline.shutdown(TIMEOUT);
+        fullTextPipeline.submit(placeholder(URL), false);
+
+        assertTrue(fullTextPipeline.shutdown(TIMEOUT), "Submitted work should finish before the timeout.");
+        verify(client, times(1)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        verify(searchIndex, times(2)).addContent(any(), argThat(text -> text.contains("collectors")));
+    }
+
+    @Test
+    void testPipelineRestartsAfterShutdown() {
+        pipeline.submit(placeholder(URL), false);
+        pipeline.shutdown(TIMEOUT);
+        pipeline.submit(placeholder(URL + "/next"), false);
+
+        assertTrue(pipeline.shutdown(TIMEOUT), "Submitted work should finish before the timeout.");
+        verify(bookmarks, times(2)).add(any());
+    }
+
+    private Bookmark placeholder(String url) {
+        var placeholder = new Bookmark(url, url, "", "", List.of(), user, group);
+        placeholders.put(placeholder.getKey(), placeholder);
+        return placeholder;
+    }
+
+    private static HttpResponse<InputStream> response(int status) {
+        HttpResponse<InputStream> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        when(response.headers()).thenReturn(HttpHeaders.of(Map.of(), (name, value) -> true));
+        when(response.body()).thenAnswer(invocation -> new ByteArrayInputStream(PAGE.getBytes(StandardCharsets.UTF_8)));
+        return response;
+    }
+}
@@ -0,0 +1,88 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.services;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.utils.datetime.DateTimeProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PageCacheTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 1, 1, 12, 0);
+    private static final PageMetadata PAGE = new PageMetadata("Title", List.of("java"), "\"v1\"", null);
+
+    private final DateTimeProvider dateTimeProvider = mock(DateTimeProvider.class);
+    private final PageCache cache = new PageCache(2, Duration.ofMinutes(10), dateTimeProvider);
+
+    @BeforeEach
+    void setup() {
+        when(dateTimeProvider.getCurrentTime()).thenReturn(NOW);
+    }
+
+    @Test
+    void testFreshEntryIsHit() {
+        cache.put("a", PAGE);
+
+        var cached = cache.get("a");
+
+        assertTrue(cached.fresh(), "Entry within its ttl should be fresh.");
+        assertEquals(PAGE, cached.metadata(), "Cached metadata should be returned.");
+        assertEquals(1, cache.statistics().hits(), "Fresh lookup should count as a hit.");
+        assertEquals(1, cache.statistics().misses(), "Stored page should count as a miss.");
+    }
+
+    @Test
+    void testExpiredEntryIsRevalidated() {
+        cache.put("a", PAGE);
+        when(dateTimeProvider.getCurrentTime()).thenReturn(NOW.plusMinutes(11));
+
+        var cached = cache.get("a");
+        assertFalse(cached.fresh(), "Entry past its ttl should be stale.");
+        assertEquals("\"v1\"", cached.metadata().conditionalHeaders().get("If-None-Match"),
+            "Stale entry should provide its validators.");
+
+        cache.revalidated("a", cached.metadata());
+        assertTrue(cache.get("a").fresh(), "Revalidated entry should be fresh again.");
+        assertEquals(1, cache.statistics().revalidations(), "Revalidation should be counted.");
+    }
+
+    @Test
+    void testLeastRecentlyUsedIsEvicted() {
+        cache.put("a", PAGE);
+        cache.put("b", PAGE);
+        cache.get("a");
+        cache.put("c", PAGE);
+
+        assertNotNull(cache.get("a"), "Recently used entry should be kept.");
+        assertNull(cache.get("b"), "Least recently used entry should be evicted.");
+        assertEquals(1, cache.statistics().evictions(), "Eviction should be counted.");
+        assertEquals(2, cache.statistics().size(), "Cache should stay within its size.");
+    }
+
+    @Test
+    void testTextIsBoundedByLength() {
+        var textCache = new PageCache(16, 10, Duration.ofMinutes(10), dateTimeProvider);
+        textCache.put("a", PAGE, "12345");
+        textCache.put("b", PAGE, "1234");
+        textCache.put("c", PAGE, "12345678901");
+
+        assertEquals("12345", textCache.get("a", true).text(), "Text within the budget should be kept.");
+        assertNull(textCache.get("c", true), "Text longer than the budget should not be kept.");
+        assertNotNull(textCache.get("c"), "Metadata should be kept without the text.");
+
+        textCache.put("d", PAGE, "1234");
+
+        assertNull(textCache.get("b", true), "Least recently used text should be evicted.");
+        assertEquals("1234", textCache.get("d", true).text(), "Invalid data returned.");
+    }
+}
@@ -0,0 +1,61 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RequestThrottleTest {
+
+    @Test
+    void testParallelismIsCapped() {
+        var throttle = new RequestThrottle(2, 1000);
+        List<CompletableFuture<Integer>> requests = new ArrayList<>();
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            var request = new CompletableFuture<Integer>();
+            requests.add(request);
+            results.add(throttle.submit("host" + i, () -> request));
+        }
+
+        requests.get(2).complete(2);
+        assertFalse(results.get(2).isDone(), "Third request should wait for a free slot.");
+
+        requests.get(0).complete(0);
+        assertEquals(2, results.get(2).join(), "Third request should start once a slot is free.");
+    }
+
+    @Test
+    void testRequestsToSameHostAreSpaced() {
+        var throttle = new RequestThrottle(10, 10);
+
+        long start = System.nanoTime();
+        CompletableFuture.allOf(
+            throttle.submit("host", () -> CompletableFuture.completedFuture(1)),
+            throttle.submit("host", () -> CompletableFuture.completedFuture(2)),
+            throttle.submit("host", () -> CompletableFuture.completedFuture(3))).join();
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(190),
+            "Requests to the same host should be spaced by the rate limit.");
+    }
+
+    @Test
+    void testFailurePropagates() {
+        var throttle = new RequestThrottle(1, 1000);
+
+        var result = throttle.submit("host", () -> CompletableFuture.failedFuture(new IllegalStateException()));
+
+        assertThrows(CompletionException.class, result::join, "Failure should be propagated.");
+        assertEquals(1, throttle.submit("host", () -> CompletableFuture.completedFuture(1)).join(),
+            "Slot should be released after a failure.");
+    }
+}
@@ -0,0 +1,75 @@
+package bg.sofia.uni.fmi.mjt.bookmarks.server.utils.serialize;
+
+import bg.sofia.uni.fmi.mjt.bookmarks.server.models.User;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BinarySerializerTest {
+
+    private final Serializer serializer = new BinarySerializer();
+
+    @Test
+    void testSerializeDeserialize() {
+        var user = new User(UUID.randomUUID().toString(), "username", "password");
+
+        User result = serializer.deserialize(serializer.serialize(user, User.class), User.class);
+
+        assertEquals(user.getKey(), result.getKey(), "Invalid key deserialized.");
+        assertEquals(user.getUsername(), result.getUsername(), "Invalid username deserialized.");
+        assertEquals(user.getPassword(), result.getPassword(), "Invalid password deserialized.");
+    }
+
+    @Test
+    void testBytesAreNotEncoded() {
+        var user = new User(UUID.randomUUID().toString(), "username", "password");
+
+        byte[] bytes = serializer.serializeBytes(user, User.class);
+        User result = serializer.deserializeBytes(bytes, User.class);
+
+        assertEquals(user.getUsername(), result.getUsername(), "Invalid username deserialized.");
+        assertTrue(bytes.length < serializer.serialize(user, User.class).length(),
+            "Records should be stored without the text encoding.");
+    }
+
+    @Test
+    void testEntriesRoundTrip() throws IOException {
+        var users = List.of(
+            new User(UUID.randomUUID().toString(), "first", "password"),
+            new User("not-a-uuid", "second", "password"));
+
+        var output = new ByteArrayOutputStream();
+        serializer.serializeEntries(output, users, User.class);
+
+        List<User> result = new ArrayList<>();
+        serializer.<User>deserializeEntries(new ByteArrayInputStream(output.toByteArray()), User.class, result::add);
+
+        assertEquals(users.stream().map(User::getKey).toList(), result.stream().map(User::getKey).toList(),
+            "Invalid entries deserialized.");
+    }
+
+    @Test
+    void testDeserializeEntriesEmptyInput() throws IOException {
+        List<User> result = new ArrayList<>();
+        serializer.<User>deserializeEntries(new ByteArrayInputStream(new byte[0]), User.class, result::add);
+
+        assertEquals(0, result.size(), "No entries expected from empty input.");
+    }
+
+    @Test
+    void testDeserializeEntriesRejectsJson() {
+        var input = new ByteArrayInputStream("{\"key\":{}}".getBytes());
+
+        assertThrows(IOException.class, () -> serializer.deserializeEntries(input, User.class, x -> { }),
+            "Non-binary input should be rejected.");
+    }
+}